@@ -0,0 +1,18 @@
+package com.form.forms.config;
+
+import com.form.forms.tenant.ContextPropagatingTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class TaskExecutionConfig {
+
+    // Picked up by the auto-configured applicationTaskExecutor, which also runs
+    // StreamingResponseBody exports and feeds, so they see the request's
+    // organization and user
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+}
@@ -0,0 +1,32 @@
+package com.form.forms.controller;
+
+import com.form.forms.model.Role;
+import com.form.forms.security.CurrentUser;
+import com.form.forms.security.PasswordHasher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Load of the login hashing pool, for watching sign-in spikes.
+ */
+@RestController
+@RequestMapping("/api/admin/auth")
+public class AdminAuthController {
+
+    private final PasswordHasher passwordHasher;
+
+    public AdminAuthController(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    @GetMapping("/hashing")
+    public ResponseEntity<Map<String, Object>> getHashingStats() {
+        if (CurrentUser.getRole() != Role.SUPER_ADMIN) {
+            throw new AccessDeniedException("Only a super admin can view sign-in load");
+        }
+        return ResponseEntity.ok(passwordHasher.getStats());
+    }
+}
@@ -0,0 +1,45 @@
+package com.form.forms.controller;
+
+import com.form.forms.dto.IndexReport;
+import com.form.forms.service.AnswerIndexAdvisor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Answer index management. The indexes live on the shared responses
+ * collection, so only a super admin may look at or change them.
+ */
+@RestController
+@RequestMapping("/api/admin/indexes")
+public class AdminIndexController {
+
+    private final AnswerIndexAdvisor indexAdvisor;
+
+    public AdminIndexController(AnswerIndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @GetMapping
+    public ResponseEntity<IndexReport> getIndexes(Authentication auth) {
+        requireSuperAdmin(auth);
+        return ResponseEntity.ok(indexAdvisor.report());
+    }
+
+    // Apply the advisor's decisions now instead of waiting for the schedule
+    @PostMapping("/reconcile")
+    public ResponseEntity<IndexReport> reconcile(Authentication auth) {
+        requireSuperAdmin(auth);
+        indexAdvisor.reconcile();
+        return ResponseEntity.ok(indexAdvisor.report());
+    }
+
+    private static void requireSuperAdmin(Authentication auth) {
+        boolean superAdmin = auth != null && auth.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_SUPER_ADMIN".equals(a.getAuthority()));
+        if (!superAdmin) {
+            throw new AccessDeniedException("Only a super admin can manage indexes");
+        }
+    }
+}
@@ -30,8 +30,9 @@ public class AnalyticsController {
     public ResponseEntity<List<Map<String, Object>>> getTimelineStats(
             @PathVariable String surveyId,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
-        return ResponseEntity.ok(analyticsService.getTimeSeriesStats(surveyId, startDate, endDate));
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String granularity) {
+        return ResponseEntity.ok(analyticsService.getTimeSeriesStats(surveyId, startDate, endDate, granularity));
     }
 
     @PostMapping("/{surveyId}/backfill")
@@ -3,6 +3,7 @@ package com.form.forms.controller;
 import com.form.forms.model.Project;
 import com.form.forms.model.User;
 import com.form.forms.repository.UserRepository;
+import com.form.forms.security.AuthenticatedPrincipal;
 import com.form.forms.service.ProjectService;
 import com.form.forms.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,7 +60,9 @@ public class ProjectController {
 
         String username = null;
         Object principal = auth.getPrincipal();
-        if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
+        if (principal instanceof AuthenticatedPrincipal) {
+            username = ((AuthenticatedPrincipal) principal).getUsername();
+        } else if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
             username = ((org.springframework.security.core.userdetails.UserDetails) principal).getUsername();
         } else if (principal instanceof String) {
             username = (String) principal;
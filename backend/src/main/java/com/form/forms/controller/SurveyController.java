@@ -1,22 +1,29 @@
 package com.form.forms.controller;
 
 import com.form.forms.dto.ImportSummary;
+import com.form.forms.model.ImportJob;
 import com.form.forms.model.Survey;
 import com.form.forms.model.SurveyResponse;
+import com.form.forms.service.ArrowExportWriter;
 import com.form.forms.service.ExcelService;
+import com.form.forms.service.ImportJobService;
+import com.form.forms.service.ResponseExportWriter;
+import com.form.forms.service.ResponseFeedWriter;
 import com.form.forms.service.SurveyService;
 import com.form.forms.exception.BadRequestException;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/surveys")
@@ -24,10 +31,22 @@ public class SurveyController {
 
     private final SurveyService surveyService;
     private final ExcelService excelService;
+    private final ImportJobService importJobService;
+    private final ResponseExportWriter exportWriter;
+    private final ArrowExportWriter arrowWriter;
+    private final ResponseFeedWriter feedWriter;
 
-    public SurveyController(SurveyService surveyService, ExcelService excelService) {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    public SurveyController(SurveyService surveyService, ExcelService excelService,
+            ImportJobService importJobService, ResponseExportWriter exportWriter,
+            ArrowExportWriter arrowWriter, ResponseFeedWriter feedWriter) {
         this.surveyService = surveyService;
         this.excelService = excelService;
+        this.importJobService = importJobService;
+        this.exportWriter = exportWriter;
+        this.arrowWriter = arrowWriter;
+        this.feedWriter = feedWriter;
     }
 
     @PostMapping
@@ -64,12 +83,74 @@ public class SurveyController {
         return ResponseEntity.ok(surveyService.submitResponse(id, payload));
     }
 
+    /**
+     * Without limit/cursor the full list is returned (legacy). With them, a
+     * ResponsePage; fields is a comma-separated list of question names.
+     * keys=dictionary returns answers with their stored keys plus the key
+     * dictionary (always a ResponsePage). filter is a ResponseFilter
+     * expression, e.g. {@code age >= 18 AND region = North}.
+     */
     @GetMapping("/{id}/responses")
-    public ResponseEntity<List<SurveyResponse>> getResponses(
+    public ResponseEntity<?> getResponses(
             @PathVariable String id,
             @RequestParam(required = false) String questionKey,
-            @RequestParam(required = false) String answerValue) {
-        return ResponseEntity.ok(surveyService.getFilteredResponses(id, questionKey, answerValue));
+            @RequestParam(required = false) String answerValue,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String keys) {
+        boolean dictionary;
+        if (keys == null || keys.equalsIgnoreCase("names")) {
+            dictionary = false;
+        } else if (keys.equalsIgnoreCase("dictionary")) {
+            dictionary = true;
+        } else {
+            throw new BadRequestException("Unsupported keys mode: " + keys);
+        }
+
+        if (limit == null && cursor == null) {
+            if (dictionary) {
+                return ResponseEntity.ok(surveyService.getResponseDictionary(id, questionKey, answerValue, filter));
+            }
+            return ResponseEntity.ok(surveyService.getResponseList(id, questionKey, answerValue, filter));
+        }
+        return ResponseEntity.ok(surveyService.getResponsePage(id, questionKey, answerValue, filter,
+                limit != null ? limit : DEFAULT_PAGE_SIZE, cursor, fields, dictionary));
+    }
+
+    /**
+     * Live feed of the same responses as NDJSON (default) or Server-Sent Events
+     * (format=sse or Accept: text/event-stream), written while the cursor is read.
+     */
+    @GetMapping("/{id}/responses/stream")
+    public ResponseEntity<StreamingResponseBody> streamResponses(
+            @PathVariable String id,
+            @RequestParam(required = false) String questionKey,
+            @RequestParam(required = false) String answerValue,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean sse;
+        if (format == null) {
+            sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        } else if (format.equalsIgnoreCase("sse")) {
+            sse = true;
+        } else if (format.equalsIgnoreCase("ndjson")) {
+            sse = false;
+        } else {
+            throw new BadRequestException("Unsupported feed format: " + format);
+        }
+
+        // Access checks run here, on the request thread
+        SurveyService.ResponseQuery feed = surveyService.prepareResponseQuery(id, questionKey, answerValue, filter);
+        StreamingResponseBody body = out -> feedWriter.write(feed, out, sse);
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Stop reverse proxies from buffering the feed
+                .header("X-Accel-Buffering", "no")
+                .body(body);
     }
 
     @PostMapping("/{id}/import")
@@ -83,20 +164,91 @@ public class SurveyController {
         }
     }
 
-    @GetMapping("/{id}/export")
-    public ResponseEntity<InputStreamResource> exportResponses(@PathVariable String id) {
+    // Background import: returns the job immediately, poll the status endpoint for progress
+    @PostMapping("/{id}/import/jobs")
+    public ResponseEntity<ImportJob> startImportJob(@PathVariable String id,
+            @RequestParam("file") MultipartFile file) {
         try {
-            ByteArrayInputStream in = excelService.exportToExcel(id);
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("Content-Disposition", "attachment; filename=responses.xlsx");
+            return ResponseEntity.accepted().body(importJobService.submit(id, file));
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/{id}/import/jobs")
+    public ResponseEntity<List<ImportJob>> getImportJobs(@PathVariable String id) {
+        return ResponseEntity.ok(importJobService.getJobs(id));
+    }
 
+    @GetMapping("/{id}/import/jobs/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String id, @PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(id, jobId));
+    }
+
+    @PostMapping("/{id}/import/jobs/{jobId}/resume")
+    public ResponseEntity<ImportJob> resumeImportJob(@PathVariable String id, @PathVariable String jobId) {
+        return ResponseEntity.accepted().body(importJobService.resume(id, jobId));
+    }
+
+    /**
+     * format: xlsx (default), csv, ndjson or arrow (Arrow IPC stream). csv and
+     * ndjson are gzip-encoded when the client accepts it; arrow batches are
+     * LZ4-compressed internally.
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportResponses(@PathVariable String id,
+            @RequestParam(defaultValue = "xlsx") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String normalized = format.toLowerCase();
+        if (!List.of("xlsx", "csv", "ndjson", "arrow").contains(normalized)) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+
+        // Access checks run here; the body is written from a cursor after the request thread returns
+        ExcelService.ResponseExport export = excelService.prepareExport(id);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", "attachment; filename=responses." + normalized);
+
+        if (normalized.equals("xlsx")) {
+            StreamingResponseBody body = out -> excelService.writeExcel(export, out);
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(MediaType
                             .parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(new InputStreamResource(in));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to export data", e);
+                    .body(body);
+        }
+
+        if (normalized.equals("arrow")) {
+            headers.set("Content-Disposition", "attachment; filename=responses.arrows");
+            StreamingResponseBody body = out -> arrowWriter.writeArrow(export, out);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentType(MediaType.parseMediaType("application/vnd.apache.arrow.stream"))
+                    .body(body);
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        if (gzip) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        boolean csv = normalized.equals("csv");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            if (csv) {
+                exportWriter.writeCsv(export, target);
+            } else {
+                exportWriter.writeNdjson(export, target);
+            }
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 }
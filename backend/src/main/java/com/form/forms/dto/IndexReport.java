@@ -0,0 +1,74 @@
+package com.form.forms.dto;
+
+import com.form.forms.model.AnswerIndexUsage;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes of the responses collection with their size and use, plus the
+ * question usage the answer index advisor bases its decisions on.
+ */
+public class IndexReport {
+    private final List<IndexInfo> indexes;
+    private final List<AnswerIndexUsage> usage;
+
+    public IndexReport(List<IndexInfo> indexes, List<AnswerIndexUsage> usage) {
+        this.indexes = indexes;
+        this.usage = usage;
+    }
+
+    public List<IndexInfo> getIndexes() {
+        return indexes;
+    }
+
+    public List<AnswerIndexUsage> getUsage() {
+        return usage;
+    }
+
+    public static class IndexInfo {
+        private final String name;
+        private final Map<String, Object> keys;
+        private final boolean managed;
+        private final Long sizeBytes;
+        private final Long accesses;
+        private final Date accessesSince;
+
+        public IndexInfo(String name, Map<String, Object> keys, boolean managed, Long sizeBytes, Long accesses,
+                Date accessesSince) {
+            this.name = name;
+            this.keys = keys;
+            this.managed = managed;
+            this.sizeBytes = sizeBytes;
+            this.accesses = accesses;
+            this.accessesSince = accessesSince;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Map<String, Object> getKeys() {
+            return keys;
+        }
+
+        // Created by the advisor (and dropped by it when unused)
+        public boolean isManaged() {
+            return managed;
+        }
+
+        public Long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        // Index lookups since accessesSince (server restart or index creation)
+        public Long getAccesses() {
+            return accesses;
+        }
+
+        public Date getAccessesSince() {
+            return accessesSince;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.form.forms.dto;
+
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseJson;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Survey responses as stored, serialized as a plain JSON array with answer
+ * keys renamed while writing (no per-response copy of the answers map).
+ */
+@JsonSerialize(using = ResponseList.Serializer.class)
+public class ResponseList {
+    private final List<SurveyResponse> items;
+    private final Map<String, String> keyToName;
+
+    public ResponseList(List<SurveyResponse> items, Map<String, String> keyToName) {
+        this.items = items;
+        this.keyToName = keyToName;
+    }
+
+    public List<SurveyResponse> getItems() {
+        return items;
+    }
+
+    public static class Serializer extends ValueSerializer<ResponseList> {
+        @Override
+        public void serialize(ResponseList value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartArray();
+            for (SurveyResponse response : value.items) {
+                ResponseJson.write(gen, ctxt, response, value.keyToName);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.form.forms.dto;
+
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseJson;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of survey responses. nextCursor is null on the last page.
+ *
+ * Items keep their stored answers map. By default answer keys are renamed to
+ * question names while writing; in dictionary mode they are written as stored
+ * and the key -> name dictionary is sent once as "keys".
+ */
+@JsonSerialize(using = ResponsePage.Serializer.class)
+public class ResponsePage {
+    private final List<SurveyResponse> items;
+    private final String nextCursor;
+    private final Map<String, String> keyToName;
+    private final boolean dictionary;
+
+    public ResponsePage(List<SurveyResponse> items, String nextCursor) {
+        this(items, nextCursor, null, false);
+    }
+
+    public ResponsePage(List<SurveyResponse> items, String nextCursor, Map<String, String> keyToName,
+            boolean dictionary) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.keyToName = keyToName;
+        this.dictionary = dictionary;
+    }
+
+    public List<SurveyResponse> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public boolean isDictionary() {
+        return dictionary;
+    }
+
+    public static class Serializer extends ValueSerializer<ResponsePage> {
+        @Override
+        public void serialize(ResponsePage value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartObject();
+            if (value.dictionary) {
+                gen.writeName("keys");
+                gen.writePOJO(value.keyToName != null ? value.keyToName : Map.of());
+            }
+            gen.writeName("items");
+            gen.writeStartArray();
+            Map<String, String> rename = value.dictionary ? null : value.keyToName;
+            for (SurveyResponse response : value.items) {
+                ResponseJson.write(gen, ctxt, response, rename);
+            }
+            gen.writeEndArray();
+            if (value.nextCursor != null) {
+                gen.writeName("nextCursor");
+                gen.writeString(value.nextCursor);
+            }
+            gen.writeName("hasMore");
+            gen.writeBoolean(value.isHasMore());
+            gen.writeEndObject();
+        }
+    }
+}
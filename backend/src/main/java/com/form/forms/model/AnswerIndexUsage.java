@@ -0,0 +1,84 @@
+package com.form.forms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * How often one survey question is used to filter or aggregate responses.
+ * Maintained by AnswerIndexAdvisor, which indexes the hot ones.
+ */
+@Document(collection = "answer_index_usage")
+public class AnswerIndexUsage {
+
+    @Id
+    private String id; // surveyId + ":" + question name
+    private String surveyId;
+    private String question;
+
+    // Stored answer paths of the question (minified key, plus the name used by imports)
+    private List<String> paths;
+
+    // Uses, halved on every reconcile (see AnswerIndexAdvisor)
+    private long hits;
+    private Date lastUsedAt;
+    private Date decayedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSurveyId() {
+        return surveyId;
+    }
+
+    public void setSurveyId(String surveyId) {
+        this.surveyId = surveyId;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public Date getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(Date lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    public Date getDecayedAt() {
+        return decayedAt;
+    }
+
+    public void setDecayedAt(Date decayedAt) {
+        this.decayedAt = decayedAt;
+    }
+}
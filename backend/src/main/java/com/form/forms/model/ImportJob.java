@@ -0,0 +1,167 @@
+package com.form.forms.model;
+
+import com.form.forms.dto.ImportSummary;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A spreadsheet import processed in the background by ImportJobService.
+ *
+ * The upload lives in GridFS until the job completes. summary and
+ * rowsCommitted are checkpointed after every written batch, so a failed or
+ * interrupted job resumes after the last committed row.
+ */
+@Document(collection = "import_jobs")
+@CompoundIndexes({
+        @CompoundIndex(name = "survey_created_idx", def = "{'surveyId': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "status_updated_idx", def = "{'status': 1, 'updatedAt': 1}")
+})
+public class ImportJob {
+
+    @Id
+    private String id;
+
+    private String surveyId;
+    private String organizationId;
+    private String createdBy;
+
+    private String fileName;
+    private String fileId; // GridFS id of the uploaded workbook
+
+    private ImportJobStatus status = ImportJobStatus.QUEUED;
+    private ImportSummary summary = new ImportSummary();
+
+    // Data rows (after the header) whose outcome is already in summary
+    private int rowsCommitted;
+    private int attempts;
+    private String message;
+
+    private Date createdAt = new Date();
+    private Date startedAt;
+    private Date updatedAt;
+    private Date finishedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSurveyId() {
+        return surveyId;
+    }
+
+    public void setSurveyId(String surveyId) {
+        this.surveyId = surveyId;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public void setOrganizationId(String organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public ImportSummary getSummary() {
+        return summary;
+    }
+
+    public void setSummary(ImportSummary summary) {
+        this.summary = summary;
+    }
+
+    public int getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public void setRowsCommitted(int rowsCommitted) {
+        this.rowsCommitted = rowsCommitted;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.form.forms.model;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,91 @@
+package com.form.forms.model;
+
+/**
+ * Mergeable accumulator for one numeric question: enough to answer COUNT,
+ * SUM, AVG, MIN, MAX and (population) standard deviation without the values.
+ * Embedded in the daily and period stats documents under numericStats.
+ */
+public class NumericSummary {
+
+    private long count;
+    private double sum;
+    private double sumSquares;
+    private Double min;
+    private Double max;
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        sumSquares += value * value;
+        min = min == null ? value : Math.min(min, value);
+        max = max == null ? value : Math.max(max, value);
+    }
+
+    public void merge(NumericSummary other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum += other.sum;
+        sumSquares += other.sumSquares;
+        if (other.min != null) {
+            min = min == null ? other.min : Math.min(min, other.min);
+        }
+        if (other.max != null) {
+            max = max == null ? other.max : Math.max(max, other.max);
+        }
+    }
+
+    public Double getAverage() {
+        return count > 0 ? sum / count : null;
+    }
+
+    public Double getStdDev() {
+        if (count == 0) {
+            return null;
+        }
+        double mean = sum / count;
+        // Rounding can push the variance of near-constant data slightly below zero
+        return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public double getSumSquares() {
+        return sumSquares;
+    }
+
+    public void setSumSquares(double sumSquares) {
+        this.sumSquares = sumSquares;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,9 @@
+package com.form.forms.model;
+
+public enum StatsGranularity {
+    MINUTE,
+    HOUR,
+    DAY,
+    MONTH,
+    YEAR
+}
@@ -29,6 +29,10 @@ public class Survey {
     // Mapping of Long Question Name -> Short Key
     private Map<String, String> minifiedKeys;
 
+    // Number of survey_daily_stats documents per day (hot-survey contention).
+    // Null or 1 keeps a single document per day.
+    private Integer statsShardCount;
+
     private SurveyStatus status = SurveyStatus.DRAFT;
     private Integer version = 1;
 
@@ -105,6 +109,14 @@ public class Survey {
         this.minifiedKeys = minifiedKeys;
     }
 
+    public Integer getStatsShardCount() {
+        return statsShardCount;
+    }
+
+    public void setStatsShardCount(Integer statsShardCount) {
+        this.statsShardCount = statsShardCount;
+    }
+
     public SurveyStatus getStatus() {
         return status;
     }
@@ -1,6 +1,7 @@
 package com.form.forms.model;
 
 import lombok.Data; // Keeping annotation just in case, but adding methods manually
+import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -10,7 +11,7 @@ import java.util.Map;
 
 @Data
 @Document(collection = "survey_daily_stats")
-@CompoundIndex(name = "survey_date_idx", def = "{'surveyId': 1, 'date': 1}", unique = true)
+@CompoundIndex(name = "survey_day_shard_idx", def = "{'surveyId': 1, 'day': 1, 'shard': 1}", unique = true)
 public class SurveyDailyStats {
 
     @Id
@@ -19,15 +20,28 @@ public class SurveyDailyStats {
     private String surveyId;
     private String organizationId;
 
-    // Format: YYYY-MM-DD
+    // Storage key: epoch day in the stats zone (see DayKey)
+    private Integer day;
+
+    // Format: YYYY-MM-DD (label of 'day')
     private String date;
 
+    // Counter shard within the survey-day. Null (field absent) is the primary
+    // document; surveys with statsShardCount > 1 also write shards 1..N-1.
+    private Integer shard;
+
+    // Set on a shard while DailyStatsCompactor folds it into the primary document
+    private ObjectId mergeId;
+
     private int totalResponses = 0;
 
     // Structure: Map<QuestionKey, Map<OptionKey, Count>>
     // Example: "q1" -> { "Yes": 10, "No": 5 }
     private Map<String, Map<String, Integer>> questionStats = new HashMap<>();
 
+    // Numeric questions only, keyed by minified key: count / sum / sumSquares / min / max
+    private Map<String, NumericSummary> numericStats = new HashMap<>();
+
     public String getId() {
         return id;
     }
@@ -52,6 +66,14 @@ public class SurveyDailyStats {
         this.organizationId = organizationId;
     }
 
+    public Integer getDay() {
+        return day;
+    }
+
+    public void setDay(Integer day) {
+        this.day = day;
+    }
+
     public String getDate() {
         return date;
     }
@@ -60,6 +82,22 @@ public class SurveyDailyStats {
         this.date = date;
     }
 
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
+    public ObjectId getMergeId() {
+        return mergeId;
+    }
+
+    public void setMergeId(ObjectId mergeId) {
+        this.mergeId = mergeId;
+    }
+
     public int getTotalResponses() {
         return totalResponses;
     }
@@ -75,4 +113,12 @@ public class SurveyDailyStats {
     public void setQuestionStats(Map<String, Map<String, Integer>> questionStats) {
         this.questionStats = questionStats;
     }
+
+    public Map<String, NumericSummary> getNumericStats() {
+        return numericStats;
+    }
+
+    public void setNumericStats(Map<String, NumericSummary> numericStats) {
+        this.numericStats = numericStats;
+    }
 }
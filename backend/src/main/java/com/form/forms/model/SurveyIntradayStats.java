@@ -0,0 +1,90 @@
+package com.form.forms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Minute and hour submission counters, maintained by the same write-time
+ * aggregation as SurveyDailyStats. Only totals are kept here; per-question
+ * breakdowns stay in the daily documents.
+ *
+ * Indexes (unique {surveyId, granularity, bucket} and the expireAt TTL) are
+ * created by DailyStatsMigration.
+ */
+@Document(collection = "survey_intraday_stats")
+public class SurveyIntradayStats {
+
+    @Id
+    private String id;
+
+    private String surveyId;
+    private String organizationId;
+
+    private StatsGranularity granularity;
+
+    // Start of the minute / hour
+    private Date bucket;
+
+    private int totalResponses = 0;
+
+    // TTL: minute buckets (and optionally hour buckets) are removed by MongoDB after this instant
+    private Date expireAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSurveyId() {
+        return surveyId;
+    }
+
+    public void setSurveyId(String surveyId) {
+        this.surveyId = surveyId;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public void setOrganizationId(String organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public StatsGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(StatsGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public Date getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(Date bucket) {
+        this.bucket = bucket;
+    }
+
+    public int getTotalResponses() {
+        return totalResponses;
+    }
+
+    public void setTotalResponses(int totalResponses) {
+        this.totalResponses = totalResponses;
+    }
+
+    public Date getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(Date expireAt) {
+        this.expireAt = expireAt;
+    }
+}
@@ -0,0 +1,138 @@
+package com.form.forms.model;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Month and year rollups of SurveyDailyStats, so long ranges read a handful of
+ * documents instead of one per day.
+ *
+ * Open periods are incremented at write time together with the daily document.
+ * Once a period is closed, StatsRollupService rebuilds it from the daily
+ * documents and marks it sealed; only sealed periods are trusted by readers.
+ */
+@Document(collection = "survey_period_stats")
+@CompoundIndex(name = "survey_period_shard_idx", def = "{'surveyId': 1, 'granularity': 1, 'period': 1, 'shard': 1}", unique = true)
+public class SurveyPeriodStats {
+
+    @Id
+    private String id;
+
+    private String surveyId;
+    private String organizationId;
+
+    // MONTH or YEAR
+    private StatsGranularity granularity;
+
+    // MONTH: yyyyMM (e.g. 202405), YEAR: yyyy
+    private int period;
+
+    // Same convention as SurveyDailyStats: absent on the primary document
+    private Integer shard;
+
+    // Set on a shard while DailyStatsCompactor folds it into the sealed primary
+    private ObjectId mergeId;
+
+    private boolean sealed;
+
+    private int totalResponses = 0;
+
+    // Structure: Map<QuestionKey, Map<OptionKey, Count>>
+    private Map<String, Map<String, Integer>> questionStats = new HashMap<>();
+
+    // Numeric questions only, keyed by minified key: count / sum / sumSquares / min / max
+    private Map<String, NumericSummary> numericStats = new HashMap<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSurveyId() {
+        return surveyId;
+    }
+
+    public void setSurveyId(String surveyId) {
+        this.surveyId = surveyId;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public void setOrganizationId(String organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public StatsGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(StatsGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(int period) {
+        this.period = period;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
+    public ObjectId getMergeId() {
+        return mergeId;
+    }
+
+    public void setMergeId(ObjectId mergeId) {
+        this.mergeId = mergeId;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    public void setSealed(boolean sealed) {
+        this.sealed = sealed;
+    }
+
+    public int getTotalResponses() {
+        return totalResponses;
+    }
+
+    public void setTotalResponses(int totalResponses) {
+        this.totalResponses = totalResponses;
+    }
+
+    public Map<String, Map<String, Integer>> getQuestionStats() {
+        return questionStats;
+    }
+
+    public void setQuestionStats(Map<String, Map<String, Integer>> questionStats) {
+        this.questionStats = questionStats;
+    }
+
+    public Map<String, NumericSummary> getNumericStats() {
+        return numericStats;
+    }
+
+    public void setNumericStats(Map<String, NumericSummary> numericStats) {
+        this.numericStats = numericStats;
+    }
+}
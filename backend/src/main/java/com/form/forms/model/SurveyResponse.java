@@ -1,9 +1,11 @@
 package com.form.forms.model;
 
+import com.form.forms.util.ResponseJson;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import tools.jackson.databind.annotation.JsonSerialize;
 
 import java.util.Date;
 import java.util.Map;
@@ -11,7 +13,13 @@ import java.util.Map;
 @Document(collection = "responses")
 @CompoundIndexes({
         @CompoundIndex(name = "org_survey_idx", def = "{'organizationId' : 1, 'surveyId' : 1, 'submittedAt' : -1}"),
-        @CompoundIndex(name = "answers_wildcard_idx", def = "{'answers.$**' : 1}")
+        // Created at startup by ResponseIndexMigration
+        @CompoundIndex(name = "survey_submitted_idx", def = "{'surveyId' : 1, 'submittedAt' : -1, '_id' : -1}"),
+        // Fallback for cold questions; AnswerIndexAdvisor adds per-survey indexes for hot ones
+        // and drops this one when app.indexes.dropWildcard is set
+        @CompoundIndex(name = "answers_wildcard_idx", def = "{'answers.$**' : 1}"),
+        // Created at startup by ResponseFingerprintMigration
+        @CompoundIndex(name = "survey_fingerprint_idx", def = "{'surveyId' : 1, 'fingerprint' : 1}", unique = true, partialFilter = "{ 'fingerprint' : { $exists : true } }")
 })
 public class SurveyResponse {
     @Id
@@ -26,12 +34,20 @@ public class SurveyResponse {
     // Default to COMPLETED for now
     private com.form.forms.model.ResponseStatus status = com.form.forms.model.ResponseStatus.COMPLETED;
 
+    // Keys renamed while writing when a key -> name map is set (ResponseJson)
+    @JsonSerialize(using = ResponseJson.AnswersSerializer.class)
     private Map<String, Object> answers;
     private Map<String, Object> metadata;
 
     private Date submittedAt = new Date();
 
-    private Integer responseHash; // For deduplication
+    private Integer responseHash; // Legacy import dedup (Map.hashCode), superseded by fingerprint
+
+    // SHA-256 of the canonical answers, set on imported responses; unique per survey
+    private String fingerprint;
+
+    // Answers stored in their canonical types (AnswerNormalizer); null on older documents
+    private Boolean answersNormalized;
 
     public Integer getResponseHash() {
         return responseHash;
@@ -41,6 +57,22 @@ public class SurveyResponse {
         this.responseHash = responseHash;
     }
 
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Boolean getAnswersNormalized() {
+        return answersNormalized;
+    }
+
+    public void setAnswersNormalized(Boolean answersNormalized) {
+        this.answersNormalized = answersNormalized;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
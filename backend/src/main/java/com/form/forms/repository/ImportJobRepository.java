@@ -0,0 +1,15 @@
+package com.form.forms.repository;
+
+import com.form.forms.model.ImportJob;
+import com.form.forms.model.ImportJobStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends MongoRepository<ImportJob, String> {
+    List<ImportJob> findTop20BySurveyIdOrderByCreatedAtDesc(String surveyId);
+
+    List<ImportJob> findByStatusOrderByCreatedAtAsc(ImportJobStatus status);
+}
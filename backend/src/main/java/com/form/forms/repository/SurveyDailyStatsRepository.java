@@ -2,16 +2,18 @@ package com.form.forms.repository;
 
 import com.form.forms.model.SurveyDailyStats;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface SurveyDailyStatsRepository extends MongoRepository<SurveyDailyStats, String> {
-    Optional<SurveyDailyStats> findBySurveyIdAndDate(String surveyId, String date);
+    List<SurveyDailyStats> findBySurveyIdAndDate(String surveyId, String date);
 
-    List<SurveyDailyStats> findBySurveyIdAndDateBetween(String surveyId, String startDate, String endDate);
+    // Inclusive range of epoch days
+    @Query("{ 'surveyId': ?0, 'day': { $gte: ?1, $lte: ?2 } }")
+    List<SurveyDailyStats> findDays(String surveyId, int fromDay, int toDay);
 
     List<SurveyDailyStats> findBySurveyId(String surveyId);
 }
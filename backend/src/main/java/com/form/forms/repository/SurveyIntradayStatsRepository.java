@@ -0,0 +1,19 @@
+package com.form.forms.repository;
+
+import com.form.forms.model.StatsGranularity;
+import com.form.forms.model.SurveyIntradayStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SurveyIntradayStatsRepository extends MongoRepository<SurveyIntradayStats, String> {
+    // Inclusive range on the bucket start
+    @Query(value = "{ 'surveyId': ?0, 'granularity': ?1, 'bucket': { $gte: ?2, $lte: ?3 } }", sort = "{ 'bucket': 1 }")
+    List<SurveyIntradayStats> findBuckets(String surveyId, StatsGranularity granularity, Date from, Date to);
+
+    void deleteBySurveyId(String surveyId);
+}
@@ -0,0 +1,20 @@
+package com.form.forms.repository;
+
+import com.form.forms.model.StatsGranularity;
+import com.form.forms.model.SurveyPeriodStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SurveyPeriodStatsRepository extends MongoRepository<SurveyPeriodStats, String> {
+    List<SurveyPeriodStats> findBySurveyIdAndGranularityAndPeriodInAndSealedTrue(String surveyId,
+            StatsGranularity granularity, Collection<Integer> periods);
+
+    List<SurveyPeriodStats> findBySurveyIdAndGranularityAndPeriod(String surveyId, StatsGranularity granularity,
+            int period);
+
+    void deleteBySurveyId(String surveyId);
+}
@@ -2,8 +2,10 @@ package com.form.forms.repository;
 
 import com.form.forms.model.SurveyResponse;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +13,8 @@ public interface SurveyResponseRepository extends MongoRepository<SurveyResponse
     List<SurveyResponse> findBySurveyId(String surveyId);
 
     List<SurveyResponse> findByOrganizationId(String organizationId);
+
+    // Import dedup probe, served by the unique (surveyId, fingerprint) index
+    @Query(value = "{ 'surveyId': ?0, 'fingerprint': { $in: ?1 } }", fields = "{ 'fingerprint': 1 }")
+    List<SurveyResponse> findFingerprints(String surveyId, Collection<String> fingerprints);
 }
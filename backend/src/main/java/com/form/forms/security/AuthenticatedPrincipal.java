@@ -0,0 +1,56 @@
+package com.form.forms.security;
+
+import com.form.forms.model.Role;
+
+import java.security.Principal;
+
+/**
+ * The identity carried by a verified JWT. Immutable, so one instance can be
+ * shared between requests presenting the same token.
+ *
+ * JwtAuthenticationFilter installs it as the principal of the request's
+ * Authentication; read it through CurrentUser.
+ */
+public final class AuthenticatedPrincipal implements Principal {
+
+    private final String userId;
+    private final String username;
+    private final Role role;
+    private final String organizationId;
+
+    public AuthenticatedPrincipal(String userId, String username, Role role, String organizationId) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.organizationId = organizationId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Null for tokens without a (known) role.
+     */
+    public Role getRole() {
+        return role;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,65 @@
+package com.form.forms.security;
+
+import com.form.forms.model.Role;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The caller of the current request, read from the claims that
+ * JwtAuthenticationFilter verified. No repository round trip: the token
+ * already carries userId, role and organizationId.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    /**
+     * Empty for anonymous requests and for authentications that did not come
+     * from a JWT.
+     */
+    public static Optional<AuthenticatedPrincipal> get() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof AuthenticatedPrincipal principal) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
+
+    public static String getUserId() {
+        return get().map(AuthenticatedPrincipal::getUserId).orElse(null);
+    }
+
+    public static String getOrganizationId() {
+        return get().map(AuthenticatedPrincipal::getOrganizationId).orElse(null);
+    }
+
+    /**
+     * Falls back to the granted ROLE_ authority for authentications set up
+     * without a token.
+     */
+    public static Role getRole() {
+        Optional<AuthenticatedPrincipal> principal = get();
+        if (principal.isPresent()) {
+            return principal.get().getRole();
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getAuthorities() == null) {
+            return null;
+        }
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                try {
+                    return Role.valueOf(name.substring("ROLE_".length()));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
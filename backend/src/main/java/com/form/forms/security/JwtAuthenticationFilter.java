@@ -1,5 +1,6 @@
 package com.form.forms.security;
 
+import com.form.forms.model.Role;
 import com.form.forms.tenant.OrganizationContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,8 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,7 +19,7 @@ import java.util.ArrayList;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtTokenProvider tokenProvider;
+    private JwtTokenVerifier tokenVerifier;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
@@ -29,13 +28,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                String organizationId = tokenProvider.getOrganizationIdFromJWT(jwt);
-                String role = tokenProvider.getRoleFromJWT(jwt);
+            AuthenticatedPrincipal principal = StringUtils.hasText(jwt)
+                    ? tokenVerifier.verify(jwt).orElse(null)
+                    : null;
+
+            if (principal != null) {
+                String organizationId = principal.getOrganizationId();
+                Role role = principal.getRole();
 
                 // Context Logic
-                if ("SUPER_ADMIN".equals(role)) {
+                if (role == Role.SUPER_ADMIN) {
                     // Super Admin can impersonate via header.
                     // If OrganizationFilter set the context, we leave it.
                     // If not, context remains null (global view).
@@ -54,9 +56,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role));
                 }
 
-                UserDetails userDetails = new User(username, "", authorities);
+                // The principal carries the token's claims, see CurrentUser
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        principal, null, authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -13,14 +13,18 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
-    @Value("${app.jwtSecret:SecretKeyToGenJWTsWithAtLeast256BitsLengthPLEASECHANGEME}")
-    private String jwtSecret;
+    private final int jwtExpirationInMs;
 
-    @Value("${app.jwtExpirationInMs:3600000}")
-    private int jwtExpirationInMs;
+    // Derived once from the secret; the parser is immutable and thread-safe
+    private final Key signingKey;
+    private final JwtParser parser;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtTokenProvider(
+            @Value("${app.jwtSecret:SecretKeyToGenJWTsWithAtLeast256BitsLengthPLEASECHANGEME}") String jwtSecret,
+            @Value("${app.jwtExpirationInMs:3600000}") int jwtExpirationInMs) {
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     public String generateToken(Authentication authentication, String userId, com.form.forms.model.Role role,
@@ -36,41 +40,34 @@ public class JwtTokenProvider {
                 .claim("organizationId", organizationId)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the signature and expiry and returns the claims.
+     *
+     * @throws JwtException or IllegalArgumentException if the token is not valid
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
 
-        return claims.getSubject();
+    public String getUsernameFromJWT(String token) {
+        return parseClaims(token).getSubject();
     }
 
     public String getOrganizationIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return (String) claims.get("organizationId");
+        return (String) parseClaims(token).get("organizationId");
     }
 
     public String getRoleFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return (String) claims.get("role");
+        return (String) parseClaims(token).get("role");
     }
 
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
         } catch (SecurityException | MalformedJwtException ex) {
             System.err.println("Invalid JWT signature");
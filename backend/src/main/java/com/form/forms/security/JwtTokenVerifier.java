@@ -0,0 +1,136 @@
+package com.form.forms.security;
+
+import com.form.forms.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Verifies a bearer token once and turns its claims into an
+ * AuthenticatedPrincipal.
+ *
+ * Clients send the same token on every request until it expires, so verified
+ * tokens are remembered in a bounded LRU cache keyed by the SHA-256 of the
+ * token (the raw token is never kept). An entry is only valid until the
+ * token's own exp claim, so a cached token expires exactly when a freshly
+ * parsed one would. Tokens without exp are verified on every request.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenVerifier.class);
+
+    private final JwtTokenProvider tokenProvider;
+    private final int maxSize;
+
+    private final Map<String, Entry> verified;
+
+    public JwtTokenVerifier(JwtTokenProvider tokenProvider,
+            @Value("${app.jwtVerifiedCacheSize:10000}") int maxSize) {
+        this.tokenProvider = tokenProvider;
+        this.maxSize = maxSize;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > JwtTokenVerifier.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * The principal of a valid token; empty if the token is malformed, badly
+     * signed or expired.
+     */
+    public Optional<AuthenticatedPrincipal> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        if (maxSize > 0) {
+            synchronized (verified) {
+                Entry entry = verified.get(key);
+                if (entry != null) {
+                    if (entry.expiresAt > now) {
+                        return Optional.of(entry.principal);
+                    }
+                    verified.remove(key);
+                }
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = tokenProvider.parseClaims(token);
+        } catch (ExpiredJwtException ex) {
+            logger.debug("Expired JWT token");
+            return Optional.empty();
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.warn("Invalid JWT token: {}", ex.getMessage());
+            return Optional.empty();
+        }
+
+        AuthenticatedPrincipal principal = new AuthenticatedPrincipal(
+                claims.get("userId", String.class),
+                claims.getSubject(),
+                role(claims.get("role", String.class)),
+                claims.get("organizationId", String.class));
+
+        Date expiration = claims.getExpiration();
+        if (expiration != null && maxSize > 0) {
+            synchronized (verified) {
+                verified.put(key, new Entry(principal, expiration.getTime()));
+            }
+        }
+        return Optional.of(principal);
+    }
+
+    private static Role role(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Role.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final AuthenticatedPrincipal principal;
+        final long expiresAt;
+
+        Entry(AuthenticatedPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.form.forms.service;
 
+import com.form.forms.exception.BadRequestException;
+import com.form.forms.model.NumericSummary;
+import com.form.forms.model.StatsGranularity;
 import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyIntradayStats;
 import com.form.forms.model.SurveyResponse;
 import com.form.forms.repository.SurveyDailyStatsRepository;
+import com.form.forms.repository.SurveyIntradayStatsRepository;
 import com.form.forms.repository.SurveyResponseRepository;
-import com.form.forms.repository.SurveyRepository;
 import com.form.forms.tenant.OrganizationContext;
+import com.form.forms.util.DayKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.stereotype.Service;
 
-import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,98 +46,70 @@ public class AnalyticsService {
     private SurveyResponseRepository responseRepository;
 
     @Autowired
-    private SurveyRepository surveyRepository;
+    private SurveyDefinitionCache surveyCache;
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-
-    /**
-     * Incrementally updates daily stats for a new response.
-     * Efficient Write-Time Aggregation.
-     */
-    public void logResponse(SurveyResponse response) {
-        if (response.getStatus() != com.form.forms.model.ResponseStatus.COMPLETED) {
-            return;
-        }
+    @Autowired
+    private SurveyIntradayStatsRepository intradayStatsRepository;
 
-        String dateStr = DATE_FORMAT.format(response.getSubmittedAt());
-        String surveyId = response.getSurveyId();
-        String orgId = response.getOrganizationId();
+    @Autowired
+    private DailyStatsAggregator statsAggregator;
 
-        Query query = new Query(Criteria.where("surveyId").is(surveyId).and("date").is(dateStr));
-        Update update = new Update();
+    @Autowired
+    private StatsRollupService rollupService;
 
-        update.setOnInsert("organizationId", orgId);
-        update.inc("totalResponses", 1);
+    @Autowired
+    private AnswerIndexAdvisor indexAdvisor;
 
-        if (response.getAnswers() != null) {
-            for (Map.Entry<String, Object> entry : response.getAnswers().entrySet()) {
-                String questionKey = entry.getKey();
-                Object value = entry.getValue();
+    @Autowired
+    private NumericStatsBackfill numericBackfill;
 
-                incrementStatsForAnswer(update, questionKey, value);
-            }
-        }
+    @Autowired
+    private ResponseAnswerMigration answerMigration;
 
-        // Atomic Upsert
-        mongoTemplate.upsert(query, update, SurveyDailyStats.class);
-    }
+    private static final ZoneId STATS_ZONE = DayKey.zone();
+    private static final DateTimeFormatter BUCKET_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final Duration AUTO_MINUTE_SPAN = Duration.ofHours(2);
+    private static final Duration AUTO_HOUR_SPAN = Duration.ofDays(3);
+    private static final int MAX_INTRADAY_BUCKETS = 5000;
+    private static final Set<String> ROLLUP_METRICS = Set.of("AVG", "MIN", "MAX", "SUM", "COUNT", "STDDEV");
 
-    private void incrementStatsForAnswer(Update update, String key, Object value) {
-        if (value == null)
+    /**
+     * Incrementally updates daily stats for a new response.
+     * Efficient Write-Time Aggregation: the increment is queued and folded with
+     * other submissions by DailyStatsAggregator, so the request thread never
+     * waits on the stats upsert.
+     */
+    public void logResponse(SurveyResponse response) {
+        if (response.getStatus() != com.form.forms.model.ResponseStatus.COMPLETED) {
             return;
-
-        if (value instanceof List) {
-            // Unwind Array (Checkbox, Tagbox)
-            for (Object item : (List<?>) value) {
-                String optionKey = sanitizeKey(item.toString());
-                update.inc("questionStats." + key + "." + optionKey, 1);
-            }
-        } else {
-            // Single Value (Radio, Dropdown, Boolean)
-            String optionKey = sanitizeKey(value.toString());
-            update.inc("questionStats." + key + "." + optionKey, 1);
         }
-    }
-
-    // MongoDB keys cannot contain '.' or '$'.
-    // Ideally we usage safe keys, but for now we replace dots with underscores.
-    private String sanitizeKey(String key) {
-        return key.replace(".", "_").replace("$", "_");
+        statsAggregator.submit(response);
     }
 
     /**
-     * Efficient O(1) Read-Time Query (Aggregating pre-computed days).
+     * Efficient Read-Time Query: the range is served from sealed year and month
+     * rollups plus the edge days, so multi-year charts read a few dozen documents.
      */
     public List<Map<String, Object>> getQuestionCounts(String surveyId, String questionKey, String startDate,
             String endDate) {
-        // Resolve startDate/endDate defaults if null
-        // Default: All time (or reasonably long period)
-
-        List<SurveyDailyStats> statsList;
-        if (startDate != null && endDate != null) {
-            statsList = statsRepository.findBySurveyIdAndDateBetween(surveyId, startDate, endDate);
-        } else {
-            statsList = statsRepository.findBySurveyId(surveyId);
-        }
+        // Default: All time
+        List<StatsRollupService.StatsSlice> slices = rollupService.loadRange(surveyId,
+                startDate != null ? toDay(startDate, false) : null,
+                endDate != null ? toDay(endDate, true) : null,
+                StatsGranularity.YEAR);
 
-        // Aggregate in Memory (Fast for < 3650 days i.e. 10 years)
         Map<String, Integer> aggregated = new HashMap<>();
 
         String minifiedKey = resolveQuestionKey(surveyId, questionKey);
 
-        for (SurveyDailyStats stats : statsList) {
-            if (stats.getQuestionStats() == null)
-                continue;
+        for (StatsRollupService.StatsSlice slice : slices) {
+            Map<String, Map<String, Integer>> questionStats = slice.getQuestionStats();
 
             // Check Minified Key (e.g. "q1")
-            if (stats.getQuestionStats().containsKey(minifiedKey)) {
-                Map<String, Integer> dailyMap = stats.getQuestionStats().get(minifiedKey);
-                mergeStats(aggregated, dailyMap);
-            }
+            mergeStats(aggregated, questionStats.get(minifiedKey));
             // Check Original Key (e.g. "product_rating") if different
-            if (!minifiedKey.equals(questionKey) && stats.getQuestionStats().containsKey(questionKey)) {
-                Map<String, Integer> dailyMap = stats.getQuestionStats().get(questionKey);
-                mergeStats(aggregated, dailyMap);
+            if (!minifiedKey.equals(questionKey)) {
+                mergeStats(aggregated, questionStats.get(questionKey));
             }
         }
 
@@ -141,26 +126,144 @@ public class AnalyticsService {
     }
 
     public List<Map<String, Object>> getTimeSeriesStats(String surveyId, String startDate, String endDate) {
+        return getTimeSeriesStats(surveyId, startDate, endDate, null);
+    }
+
+    /**
+     * Submission counts per bucket. granularity is minute, hour, day, month,
+     * year or auto (default day); auto picks the coarsest of minute/hour/day that
+     * still shows the shape of the requested range. Minute and hour series come
+     * from survey_intraday_stats and are zero-filled; month and year series use
+     * the sealed rollups where available.
+     */
+    public List<Map<String, Object>> getTimeSeriesStats(String surveyId, String startDate, String endDate,
+            String granularity) {
+        StatsGranularity resolved = resolveGranularity(granularity, startDate, endDate);
+        if (resolved == StatsGranularity.MINUTE || resolved == StatsGranularity.HOUR) {
+            return getIntradaySeries(surveyId, startDate, endDate, resolved);
+        }
+        if (resolved == StatsGranularity.MONTH || resolved == StatsGranularity.YEAR) {
+            return getPeriodSeries(surveyId, startDate, endDate, resolved);
+        }
+
         List<SurveyDailyStats> statsList;
         if (startDate != null && endDate != null) {
-            statsList = statsRepository.findBySurveyIdAndDateBetween(surveyId, startDate, endDate);
+            statsList = statsRepository.findDays(surveyId, DayKey.of(toDay(startDate, false)),
+                    DayKey.of(toDay(endDate, true)));
         } else {
             statsList = statsRepository.findBySurveyId(surveyId);
         }
 
+        // Sum counter shards per day (TreeMap keeps days sorted)
+        Map<Integer, Integer> perDay = new TreeMap<>();
+        for (SurveyDailyStats stats : statsList) {
+            if (stats.getDay() != null) {
+                perDay.merge(stats.getDay(), stats.getTotalResponses(), Integer::sum);
+            }
+        }
+
         List<Map<String, Object>> result = new ArrayList<>();
-        // Sort by Date
-        statsList.sort(Comparator.comparing(SurveyDailyStats::getDate));
+        for (Map.Entry<Integer, Integer> day : perDay.entrySet()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("date", DayKey.format(day.getKey()));
+            item.put("count", day.getValue());
+            result.add(item);
+        }
+        return result;
+    }
 
-        for (SurveyDailyStats stats : statsList) {
+    private StatsGranularity resolveGranularity(String granularity, String startDate, String endDate) {
+        if (granularity == null || granularity.isBlank() || "day".equalsIgnoreCase(granularity)) {
+            return StatsGranularity.DAY;
+        }
+        if ("auto".equalsIgnoreCase(granularity)) {
+            if (startDate == null || endDate == null) {
+                return StatsGranularity.DAY;
+            }
+            Duration span = Duration.between(parseBoundary(startDate, false), parseBoundary(endDate, true));
+            if (span.compareTo(AUTO_MINUTE_SPAN) <= 0) {
+                return StatsGranularity.MINUTE;
+            }
+            return span.compareTo(AUTO_HOUR_SPAN) <= 0 ? StatsGranularity.HOUR : StatsGranularity.DAY;
+        }
+        try {
+            return StatsGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown granularity: " + granularity);
+        }
+    }
+
+    private List<Map<String, Object>> getPeriodSeries(String surveyId, String startDate, String endDate,
+            StatsGranularity granularity) {
+        int labelLength = granularity == StatsGranularity.MONTH ? 7 : 4;
+        Map<String, Integer> perPeriod = new TreeMap<>();
+        for (StatsRollupService.StatsSlice slice : rollupService.loadRange(surveyId,
+                startDate != null ? toDay(startDate, false) : null,
+                endDate != null ? toDay(endDate, true) : null, granularity)) {
+            perPeriod.merge(slice.getLabel().substring(0, labelLength), slice.getTotalResponses(), Integer::sum);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, Integer> period : perPeriod.entrySet()) {
             Map<String, Object> item = new HashMap<>();
-            item.put("date", stats.getDate());
-            item.put("count", stats.getTotalResponses());
+            item.put("date", period.getKey());
+            item.put("count", period.getValue());
             result.add(item);
         }
         return result;
     }
 
+    private List<Map<String, Object>> getIntradaySeries(String surveyId, String startDate, String endDate,
+            StatsGranularity granularity) {
+        ChronoUnit unit = granularity == StatsGranularity.MINUTE ? ChronoUnit.MINUTES : ChronoUnit.HOURS;
+
+        Instant end = endDate != null ? parseBoundary(endDate, true) : Instant.now();
+        Instant start = startDate != null ? parseBoundary(startDate, false)
+                : end.minus(granularity == StatsGranularity.MINUTE ? Duration.ofHours(1) : Duration.ofDays(1));
+
+        ZonedDateTime cursor = start.atZone(STATS_ZONE).truncatedTo(unit);
+        if (unit.between(cursor, end.atZone(STATS_ZONE)) > MAX_INTRADAY_BUCKETS) {
+            throw new BadRequestException("Range too large for " + granularity.name().toLowerCase()
+                    + " granularity, use a coarser granularity");
+        }
+
+        Map<Instant, Integer> counts = new HashMap<>();
+        for (SurveyIntradayStats stats : intradayStatsRepository.findBuckets(surveyId, granularity,
+                Date.from(cursor.toInstant()), Date.from(end))) {
+            counts.merge(stats.getBucket().toInstant(), stats.getTotalResponses(), Integer::sum);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (; !cursor.toInstant().isAfter(end); cursor = cursor.plus(1, unit)) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("date", BUCKET_LABEL.format(cursor));
+            item.put("count", counts.getOrDefault(cursor.toInstant(), 0));
+            result.add(item);
+        }
+        return result;
+    }
+
+    private LocalDate toDay(String value, boolean endOfRange) {
+        return parseBoundary(value, endOfRange).atZone(STATS_ZONE).toLocalDate();
+    }
+
+    // Accepts yyyy-MM-dd (start or end of that day), a local date-time or an ISO instant.
+    private Instant parseBoundary(String value, boolean endOfRange) {
+        try {
+            if (value.length() == 10) {
+                LocalDate day = LocalDate.parse(value);
+                return endOfRange ? day.plusDays(1).atStartOfDay(STATS_ZONE).toInstant().minusMillis(1)
+                        : day.atStartOfDay(STATS_ZONE).toInstant();
+            }
+            if (value.endsWith("Z") || value.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(value).toInstant();
+            }
+            return LocalDateTime.parse(value).atZone(STATS_ZONE).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date: " + value);
+        }
+    }
+
     // Admin / Developer Utility
     public void backfillSurvey(String surveyId) {
         // Clear existing stats for this survey to avoid double counting?
@@ -168,21 +271,52 @@ public class AnalyticsService {
         // Dangerous.
         // Strategy: Delete all stats for surveyId, then iterate responses.
 
-        statsRepository.deleteAll(statsRepository.findBySurveyId(surveyId));
-
-        List<SurveyResponse> responses = responseRepository.findBySurveyId(surveyId);
-        for (SurveyResponse response : responses) {
-            logResponse(response);
+        // Queued increments are written before the delete; submissions arriving
+        // meanwhile are held and only applied if the rebuild did not see them.
+        statsAggregator.beginBackfill(surveyId);
+        Set<String> rebuiltIds = new HashSet<>();
+        try {
+            statsRepository.deleteAll(statsRepository.findBySurveyId(surveyId));
+            intradayStatsRepository.deleteBySurveyId(surveyId);
+            rollupService.deleteSurvey(surveyId);
+
+            List<SurveyResponse> responses = responseRepository.findBySurveyId(surveyId).stream()
+                    .filter(r -> r.getStatus() == com.form.forms.model.ResponseStatus.COMPLETED)
+                    .collect(Collectors.toList());
+            responses.forEach(r -> rebuiltIds.add(r.getId()));
+            statsAggregator.writeNow(responses);
+        } finally {
+            statsAggregator.endBackfill(surveyId, rebuiltIds);
         }
     }
 
     /**
-     * Calculates dynamic metrics (AVG, MIN, MAX, COUNT, UNIQUE) for a specific
-     * question.
-     * Uses MongoDB Aggregation on the raw SurveyResponse collection.
+     * Calculates dynamic metrics (AVG, MIN, MAX, SUM, COUNT, STDDEV, UNIQUE) for a
+     * specific question.
+     * Numeric questions are answered from the numericStats rollups once they are
+     * backfilled; everything else uses MongoDB Aggregation on the raw
+     * SurveyResponse collection.
+     *
+     * A numeric question's AVG/MIN/MAX/SUM/COUNT/STDDEV counts the same
+     * population on both paths, so a tile does not change value when the
+     * backfill completes: COMPLETED responses only, and only answers that are
+     * numbers (COUNT is the number of numeric answers). Other questions and
+     * UNIQUE keep counting every answered response of any status.
      */
     public Map<String, Object> calculateMetric(String surveyId, String questionKey, String metricType, String startDate,
             String endDate) {
+        CompiledSurvey compiled = surveyCache.find(surveyId).orElse(null);
+        CompiledSurvey.Question question = compiled != null ? compiled.getQuestion(questionKey) : null;
+        boolean numericQuestion = question != null && AnswerNormalizer.isNumeric(question);
+        // Legacy numeric strings stay until the normalization migration has rewritten every response
+        boolean storedAsNumber = numericQuestion && answerMigration.isComplete();
+
+        boolean rollupMetric = numericQuestion && ROLLUP_METRICS.contains(metricType.toUpperCase());
+
+        if (rollupMetric && numericBackfill.isComplete()) {
+            return metricFromRollups(surveyId, question, metricType, startDate, endDate);
+        }
+
         List<AggregationOperation> operations = new ArrayList<>();
 
         // 1. Match SurveyId
@@ -199,13 +333,18 @@ public class AnalyticsService {
         Criteria criteria = Criteria.where("surveyId").is(surveyId);
         // We can optionally filter OUT 'IN_PROGRESS' if we have partial responses?
         // For now, simple ID match is safest for "imported data" visibility.
+        if (rollupMetric) {
+            // Same population as the numericStats rollups, which only fold COMPLETED responses
+            criteria.and("status").is(com.form.forms.model.ResponseStatus.COMPLETED);
+        }
 
         // 2. Date Filter
         if (startDate != null && endDate != null) {
             try {
-                Date start = DATE_FORMAT.parse(startDate);
-                Date end = DATE_FORMAT.parse(endDate);
-                criteria.and("submittedAt").gte(start).lte(end);
+                // Whole days: [start of startDate, start of the day after endDate)
+                Date start = DayKey.startOf(DayKey.parse(startDate));
+                Date end = DayKey.startOf(DayKey.parse(endDate) + 1);
+                criteria.and("submittedAt").gte(start).lt(end);
             } catch (Exception e) {
                 // Ignore parsing errors
             }
@@ -226,13 +365,32 @@ public class AnalyticsService {
         operations.add(Aggregation.match(existsCriteria));
 
         String convertedField = "convertedValue";
-        boolean isNumericMetric = List.of("AVG", "MIN", "MAX", "SUM").contains(metricType.toUpperCase());
+        boolean isNumericMetric = List.of("AVG", "MIN", "MAX", "SUM", "STDDEV").contains(metricType.toUpperCase());
 
         // Field Value Expression: $ifNull: [ "$answers.q1", "$answers.product_rating" ]
         org.springframework.data.mongodb.core.aggregation.AggregationExpression valueExpression = org.springframework.data.mongodb.core.aggregation.ConditionalOperators
                 .ifNull(pathMinified).thenValueOf(pathOriginal);
 
-        if (isNumericMetric) {
+        if (question != null) {
+            indexAdvisor.record(compiled, question);
+        }
+
+        // Normalized numeric questions already store a Double; the rollup population
+        // keeps numbers only, so a non-numeric leftover is skipped instead of counting as 0
+        if (rollupMetric) {
+            if (storedAsNumber) {
+                operations.add(Aggregation.project().and(valueExpression).as(convertedField));
+            } else {
+                operations.add(Aggregation.project()
+                        .and(org.springframework.data.mongodb.core.aggregation.ConvertOperators.Convert
+                                .convertValue(valueExpression)
+                                .to(org.springframework.data.mongodb.core.schema.JsonSchemaObject.Type.doubleType())
+                                .onErrorReturn("")) // Not a number; dropped by the $type match
+                        .as(convertedField));
+            }
+            operations.add(Aggregation.match(Criteria.where(convertedField)
+                    .type(org.springframework.data.mongodb.core.schema.JsonSchemaObject.Type.numberType())));
+        } else if (isNumericMetric) {
             // Safe Convert to Double
             operations.add(Aggregation.project()
                     .and(org.springframework.data.mongodb.core.aggregation.ConvertOperators.Convert
@@ -259,6 +417,12 @@ public class AnalyticsService {
             case "MAX":
                 operations.add(Aggregation.group().max(convertedField).as(projectField));
                 break;
+            case "SUM":
+                operations.add(Aggregation.group().sum(convertedField).as(projectField));
+                break;
+            case "STDDEV":
+                operations.add(Aggregation.group().stdDevPop(convertedField).as(projectField));
+                break;
             case "COUNT":
                 operations.add(Aggregation.count().as(projectField));
                 break;
@@ -286,15 +450,52 @@ public class AnalyticsService {
         return response;
     }
 
-    private String resolveQuestionKey(String surveyId, String questionKey) {
-        com.form.forms.model.Survey survey = surveyRepository.findById(surveyId).orElse(null);
-        if (survey != null && survey.getMinifiedKeys() != null) {
-            String minified = survey.getMinifiedKeys().get(questionKey);
-            if (minified != null) {
-                return minified;
-            }
+    /**
+     * Same metric from the per-day numeric accumulators: O(days) instead of
+     * O(responses), with sealed months and years read as single documents.
+     */
+    private Map<String, Object> metricFromRollups(String surveyId, CompiledSurvey.Question question,
+            String metricType, String startDate, String endDate) {
+        // Same date semantics as the raw aggregation: both bounds or none
+        boolean ranged = startDate != null && endDate != null;
+        NumericSummary total = new NumericSummary();
+        for (StatsRollupService.StatsSlice slice : rollupService.loadRange(surveyId,
+                ranged ? toDay(startDate, false) : null, ranged ? toDay(endDate, true) : null,
+                StatsGranularity.YEAR)) {
+            total.merge(slice.getNumericStats().get(DailyStatsAggregator.sanitizeKey(question.getKey())));
         }
-        return questionKey;
+
+        Object value;
+        switch (metricType.toUpperCase()) {
+            case "AVG":
+                value = total.getAverage();
+                break;
+            case "MIN":
+                value = total.getMin();
+                break;
+            case "MAX":
+                value = total.getMax();
+                break;
+            case "SUM":
+                value = total.getSum();
+                break;
+            case "STDDEV":
+                value = total.getStdDev();
+                break;
+            default: // COUNT
+                value = total.getCount();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("type", metricType);
+        response.put("value", value != null ? value : 0);
+        return response;
+    }
+
+    private String resolveQuestionKey(String surveyId, String questionKey) {
+        return surveyCache.find(surveyId)
+                .map(survey -> survey.toKey(questionKey))
+                .orElse(questionKey);
     }
 
     private void mergeStats(Map<String, Integer> aggregated, Map<String, Integer> dailyMap) {
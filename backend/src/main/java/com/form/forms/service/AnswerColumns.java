@@ -0,0 +1,95 @@
+package com.form.forms.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places stored answers into one column per question, shared by the XLSX, CSV,
+ * NDJSON and Arrow exports so they agree on every response.
+ *
+ * Answers are stored under the original question name (imports) or the
+ * minified key (submissions); legacy documents nest a second "answers" map
+ * keyed by question name. An answer under the question name wins over one
+ * under the key, and both over the nested map. The index is computed once per
+ * export, so each response is placed with one pass over its own answers.
+ */
+final class AnswerColumns {
+
+    private final String[] names;
+    private final Map<String, Integer> byName;
+    private final Map<String, Integer> byKey;
+
+    AnswerColumns(CompiledSurvey survey) {
+        List<CompiledSurvey.Question> questions = survey.getQuestions();
+        this.names = new String[questions.size()];
+        this.byName = new HashMap<>(questions.size() * 2);
+        this.byKey = new HashMap<>(questions.size() * 2);
+        for (int i = 0; i < questions.size(); i++) {
+            CompiledSurvey.Question question = questions.get(i);
+            names[i] = question.getName();
+            byName.putIfAbsent(question.getName(), i);
+            byKey.putIfAbsent(question.getKey(), i);
+        }
+    }
+
+    /**
+     * Question names, in column order.
+     */
+    String[] names() {
+        return names;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * Resets row (one slot per column) and fills it from the answers; columns
+     * without an answer stay null.
+     */
+    void fill(Map<String, Object> answers, Object[] row) {
+        Arrays.fill(row, null);
+        if (answers == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : answers.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            Integer column = byName.get(entry.getKey());
+            if (column != null) {
+                row[column] = entry.getValue();
+            } else if ((column = byKey.get(entry.getKey())) != null && row[column] == null) {
+                row[column] = entry.getValue();
+            }
+        }
+        if (answers.get("answers") instanceof Map<?, ?> nested) {
+            for (Map.Entry<?, ?> entry : nested.entrySet()) {
+                Integer column = byName.get(String.valueOf(entry.getKey()));
+                if (column != null && row[column] == null) {
+                    row[column] = entry.getValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Text of an answer as every export renders it: list answers joined with ", ".
+     */
+    static String text(Object value) {
+        if (value instanceof Collection<?> list) {
+            StringBuilder joined = new StringBuilder();
+            for (Object item : list) {
+                if (joined.length() > 0) {
+                    joined.append(", ");
+                }
+                joined.append(item);
+            }
+            return joined.toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,275 @@
+package com.form.forms.service;
+
+import com.form.forms.dto.IndexReport;
+import com.form.forms.model.AnswerIndexUsage;
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseFingerprint;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-survey answer indexes, created for the questions that are actually
+ * drilled into instead of relying on the blanket answers.$** wildcard index.
+ *
+ * Filters and metrics report the questions they touch; counts are kept in
+ * memory and flushed to answer_index_usage. reconcile() then gives each hot
+ * question (at least minHits recent uses, used within dropAfterDays) a
+ * partial compound index {surveyId: 1, answers.<path>: 1} restricted to its
+ * survey, and drops managed indexes whose question went cold. hits is a
+ * decaying count: every reconcile halves it, so a question stays hot only
+ * while it keeps being used, not because of a burst long ago. Managed indexes are
+ * recognizable by their "ans_" name prefix; others are never touched, except
+ * the wildcard index when dropWildcard is set.
+ */
+@Service
+public class AnswerIndexAdvisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerIndexAdvisor.class);
+
+    static final String INDEX_PREFIX = "ans_";
+    private static final String WILDCARD_INDEX = "answers_wildcard_idx";
+    private static final int MAX_INDEX_NAME = 120;
+
+    private final MongoTemplate mongoTemplate;
+    private final SurveyDefinitionCache surveyCache;
+    private final long minHits;
+    private final int dropAfterDays;
+    private final int maxManaged;
+    private final boolean dropWildcard;
+    private final long reconcileIntervalMs;
+
+    // surveyId:question -> uses since the last flush
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+    public AnswerIndexAdvisor(MongoTemplate mongoTemplate, SurveyDefinitionCache surveyCache,
+            @Value("${app.indexes.minHits:100}") long minHits,
+            @Value("${app.indexes.dropAfterDays:14}") int dropAfterDays,
+            @Value("${app.indexes.maxManaged:40}") int maxManaged,
+            @Value("${app.indexes.dropWildcard:false}") boolean dropWildcard,
+            @Value("${app.indexes.reconcileIntervalMs:3600000}") long reconcileIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.surveyCache = surveyCache;
+        this.minHits = minHits;
+        this.dropAfterDays = dropAfterDays;
+        this.maxManaged = maxManaged;
+        this.dropWildcard = dropWildcard;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+    }
+
+    /**
+     * Counts one filter or aggregation on a question. Cheap; called on the
+     * request path.
+     */
+    public void record(CompiledSurvey survey, CompiledSurvey.Question question) {
+        pending.computeIfAbsent(survey.getId() + ":" + question.getName(),
+                id -> new Pending(survey.getId(), question)).hits.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.indexes.flushIntervalMs:60000}", initialDelayString = "${app.indexes.flushIntervalMs:60000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnswerIndexUsage.class);
+        int updates = 0;
+        for (String id : new ArrayList<>(pending.keySet())) {
+            // A use racing with remove() may be lost; the counts are advisory
+            Pending usage = pending.remove(id);
+            long hits = usage != null ? usage.hits.sum() : 0;
+            if (hits == 0) {
+                continue;
+            }
+            ops.upsert(new Query(Criteria.where("_id").is(id)), new Update()
+                    .set("surveyId", usage.surveyId)
+                    .set("question", usage.question)
+                    .set("paths", usage.paths)
+                    .inc("hits", hits)
+                    .max("lastUsedAt", now));
+            updates++;
+        }
+        if (updates > 0) {
+            ops.execute();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.indexes.reconcileIntervalMs:3600000}", initialDelayString = "${app.indexes.reconcileIntervalMs:3600000}")
+    public void reconcile() {
+        flush();
+
+        IndexOperations indexOps = mongoTemplate.indexOps(SurveyResponse.class);
+        Set<String> existing = new LinkedHashSet<>();
+        for (IndexInfo info : indexOps.getIndexInfo()) {
+            existing.add(info.getName());
+        }
+
+        // Hottest first, up to maxManaged indexes
+        Date staleBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(dropAfterDays));
+        Query hot = new Query(Criteria.where("hits").gte(minHits).and("lastUsedAt").gte(staleBefore))
+                .with(Sort.by(Sort.Direction.DESC, "hits"));
+        Map<String, Index> wanted = new HashMap<>();
+        for (AnswerIndexUsage usage : mongoTemplate.find(hot, AnswerIndexUsage.class)) {
+            if (surveyCache.find(usage.getSurveyId()).isEmpty() || usage.getPaths() == null) {
+                continue; // Survey deleted
+            }
+            for (String path : usage.getPaths()) {
+                if (wanted.size() >= maxManaged) {
+                    break;
+                }
+                wanted.put(indexName(usage.getSurveyId(), path), new Index()
+                        .on("surveyId", Sort.Direction.ASC)
+                        .on(path, Sort.Direction.ASC)
+                        .named(indexName(usage.getSurveyId(), path))
+                        .partial(PartialIndexFilter.of(Criteria.where("surveyId").is(usage.getSurveyId()))));
+            }
+        }
+
+        decayHits();
+
+        int created = 0;
+        int dropped = 0;
+        for (Map.Entry<String, Index> entry : wanted.entrySet()) {
+            if (existing.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                indexOps.createIndex(entry.getValue());
+                created++;
+            } catch (Exception e) {
+                logger.error("Could not create answer index {}", entry.getKey(), e);
+            }
+        }
+        for (String name : existing) {
+            boolean unusedManaged = name.startsWith(INDEX_PREFIX) && !wanted.containsKey(name);
+            if (unusedManaged || (dropWildcard && WILDCARD_INDEX.equals(name))) {
+                try {
+                    indexOps.dropIndex(name);
+                    dropped++;
+                } catch (Exception e) {
+                    logger.error("Could not drop answer index {}", name, e);
+                }
+            }
+        }
+        if (created > 0 || dropped > 0) {
+            logger.info("Answer indexes reconciled: {} created, {} dropped, {} managed", created, dropped,
+                    wanted.size());
+        }
+    }
+
+    /**
+     * Halves every usage count. Each instance reconciles, so a document is
+     * only decayed if that has not happened in the last half interval.
+     */
+    private void decayHits() {
+        long now = System.currentTimeMillis();
+        Query due = new Query(Criteria.where("hits").gt(0).orOperator(
+                Criteria.where("decayedAt").exists(false),
+                Criteria.where("decayedAt").lt(new Date(now - reconcileIntervalMs / 2))));
+        try {
+            // $toLong truncates, so hits stays an integer and a single use decays to 0
+            mongoTemplate.updateMulti(due, AggregationUpdate.update()
+                    .set("hits").toValue(ConvertOperators.ToLong.toLong(
+                            ArithmeticOperators.Divide.valueOf("hits").divideBy(2)))
+                    .set("decayedAt").toValue(new Date(now)), AnswerIndexUsage.class);
+        } catch (Exception e) {
+            logger.warn("Could not decay answer index usage: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Every index on the responses collection with its size and access count
+     * (both best effort: they need the collStats / indexStats privileges).
+     */
+    public IndexReport report() {
+        flush();
+
+        Map<String, Long> sizes = new HashMap<>();
+        Map<String, Document> accesses = new HashMap<>();
+        String collection = mongoTemplate.getCollectionName(SurveyResponse.class);
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection).aggregate(
+                    List.of(new Document("$collStats", new Document("storageStats", new Document()))))) {
+                Document indexSizes = stats.get("storageStats", Document.class).get("indexSizes", Document.class);
+                if (indexSizes != null) {
+                    indexSizes.forEach((name, size) -> sizes.merge(name, ((Number) size).longValue(), Long::sum));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Index sizes unavailable: {}", e.getMessage());
+        }
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection).aggregate(
+                    List.of(new Document("$indexStats", new Document())))) {
+                accesses.put(stats.getString("name"), stats.get("accesses", Document.class));
+            }
+        } catch (Exception e) {
+            logger.warn("Index access counts unavailable: {}", e.getMessage());
+        }
+
+        List<IndexReport.IndexInfo> indexes = new ArrayList<>();
+        for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+            String name = index.getString("name");
+            Document access = accesses.get(name);
+            indexes.add(new IndexReport.IndexInfo(name, index.get("key", Document.class),
+                    name.startsWith(INDEX_PREFIX), sizes.get(name),
+                    access != null ? ((Number) access.get("ops")).longValue() : null,
+                    access != null ? access.getDate("since") : null));
+        }
+
+        List<AnswerIndexUsage> usage = mongoTemplate.find(
+                new Query().with(Sort.by(Sort.Direction.DESC, "hits")), AnswerIndexUsage.class);
+        return new IndexReport(indexes, usage);
+    }
+
+    static String indexName(String surveyId, String path) {
+        String name = INDEX_PREFIX + surveyId + "_" + path.substring(path.indexOf('.') + 1);
+        if (name.length() > MAX_INDEX_NAME) {
+            // Long question names: keep the name unique but bounded
+            name = INDEX_PREFIX + surveyId + "_" + ResponseFingerprint.of(Map.of("path", path)).substring(0, 16);
+        }
+        return name;
+    }
+
+    private static final class Pending {
+        final String surveyId;
+        final String question;
+        final List<String> paths;
+        final LongAdder hits = new LongAdder();
+
+        Pending(String surveyId, CompiledSurvey.Question question) {
+            this.surveyId = surveyId;
+            this.question = question.getName();
+            this.paths = question.getKey().equals(question.getName())
+                    ? List.of("answers." + question.getKey())
+                    : List.of("answers." + question.getKey(), "answers." + question.getName());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.form.forms.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical stored type of an answer, derived from its question:
+ *
+ * - numeric questions (number, rating, text with inputType number/range): Double
+ * - boolean questions: Boolean
+ * - choice questions: the native value of the matching choice (String or
+ *   number as written in the survey), always a List for multi-choice
+ * - text and comment questions: String
+ *
+ * Anything else (matrix, file, ...) and values that do not convert are kept
+ * as sent, so normalization never loses data. With one representation per
+ * question, drill-down compares against a single value and aggregations can
+ * use the stored field without $convert.
+ */
+public final class AnswerNormalizer {
+
+    private AnswerNormalizer() {
+    }
+
+    /**
+     * Normalized copy of an answers map. Keys are kept as given (question name
+     * or minified key); keys that are not questions of the survey are copied
+     * unchanged.
+     */
+    public static Map<String, Object> normalize(CompiledSurvey survey, Map<String, Object> answers) {
+        Map<String, Object> normalized = new LinkedHashMap<>(answers.size() * 2);
+        for (Map.Entry<String, Object> entry : answers.entrySet()) {
+            CompiledSurvey.Question question = survey.getQuestion(entry.getKey());
+            if (question == null) {
+                question = survey.getQuestion(survey.toName(entry.getKey()));
+            }
+            normalized.put(entry.getKey(),
+                    question != null ? normalize(question, entry.getValue()) : entry.getValue());
+        }
+        return normalized;
+    }
+
+    public static Object normalize(CompiledSurvey.Question question, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (isNumeric(question)) {
+            return toNumber(value);
+        }
+        if (isBoolean(question)) {
+            return toBoolean(value);
+        }
+        if (isChoice(question) && !question.getChoices().isEmpty()) {
+            return toChoice(question, value);
+        }
+        if (isText(question) && (value instanceof Number || value instanceof Boolean)) {
+            return value instanceof Number n ? numberText(n) : value.toString();
+        }
+        return value;
+    }
+
+    public static boolean isNumeric(CompiledSurvey.Question question) {
+        String type = question.getType();
+        String inputType = question.getInputType();
+        return "number".equals(type) || "rating".equals(type)
+                || "text".equals(type) && ("number".equals(inputType) || "range".equals(inputType));
+    }
+
+    public static boolean isBoolean(CompiledSurvey.Question question) {
+        return "boolean".equals(question.getType());
+    }
+
+    public static boolean isMultiChoice(CompiledSurvey.Question question) {
+        return "checkbox".equals(question.getType()) || "tagbox".equals(question.getType());
+    }
+
+    private static boolean isChoice(CompiledSurvey.Question question) {
+        String type = question.getType();
+        return "radiogroup".equals(type) || "dropdown".equals(type) || isMultiChoice(question);
+    }
+
+    private static boolean isText(CompiledSurvey.Question question) {
+        return ("text".equals(question.getType()) && question.getInputType() == null)
+                || "comment".equals(question.getType());
+    }
+
+    /**
+     * The survey's own choice value whose text form equals value, or null.
+     */
+    public static Object findChoice(CompiledSurvey.Question question, String value) {
+        for (Object choice : question.getChoices()) {
+            if (choice != null && numberOrString(choice).equals(value)) {
+                return choice;
+            }
+        }
+        return null;
+    }
+
+    private static Object toNumber(Object value) {
+        if (value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (value instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim().replace(",", ""));
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    private static Object toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        String s = value.toString().trim();
+        if ("true".equalsIgnoreCase(s) || "yes".equalsIgnoreCase(s) || "1".equals(s)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(s) || "no".equalsIgnoreCase(s) || "0".equals(s)) {
+            return false;
+        }
+        return value;
+    }
+
+    private static Object toChoice(CompiledSurvey.Question question, Object value) {
+        if (value instanceof Collection<?> items) {
+            List<Object> converted = new ArrayList<>(items.size());
+            for (Object item : items) {
+                converted.add(item != null ? choiceOrSelf(question, item) : null);
+            }
+            return converted;
+        }
+
+        if (!isMultiChoice(question)) {
+            return choiceOrSelf(question, value);
+        }
+        if (value instanceof Map) {
+            return value;
+        }
+        Object choice = findChoice(question, numberOrString(value));
+        if (choice != null) {
+            return List.of(choice);
+        }
+        if (value instanceof String s && s.contains(",")) {
+            // Spreadsheet cells hold a multi-choice answer as "a, b"
+            List<Object> converted = new ArrayList<>();
+            for (String part : s.split(",")) {
+                Object item = findChoice(question, part.trim());
+                if (item == null) {
+                    return value;
+                }
+                converted.add(item);
+            }
+            return converted;
+        }
+        return value;
+    }
+
+    private static Object choiceOrSelf(CompiledSurvey.Question question, Object value) {
+        if (value instanceof Map || value instanceof Collection) {
+            return value;
+        }
+        Object choice = findChoice(question, numberOrString(value));
+        return choice != null ? choice : value;
+    }
+
+    private static String numberOrString(Object value) {
+        return value instanceof Number n ? numberText(n) : value.toString();
+    }
+
+    /**
+     * 3.0 -> "3", 2.5 -> "2.5"; matches choices written as 3 or "3".
+     */
+    static String numberText(Number n) {
+        if ((n instanceof Double || n instanceof Float) && Double.isFinite(n.doubleValue())) {
+            return new BigDecimal(n.toString()).stripTrailingZeros().toPlainString();
+        }
+        return n.toString();
+    }
+}
@@ -0,0 +1,237 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import jakarta.annotation.PreDestroy;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Columnar export of survey responses as an Arrow IPC stream.
+ *
+ * One column per question, typed the way the importer coerces values
+ * (ExcelService.coerceValue): numeric questions become float64, boolean
+ * questions bool, everything else utf8. Responses are read from a Mongo
+ * cursor and written in record batches of batchRows, each LZ4-compressed,
+ * so off-heap memory is bounded by one batch. Answers are placed by
+ * AnswerColumns, like the XLSX and CSV exports.
+ */
+@Service
+public class ArrowExportWriter {
+
+    private static final int CURSOR_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RootAllocator rootAllocator;
+    private final int batchRows;
+    private final long exportMemoryLimit;
+
+    public ArrowExportWriter(MongoTemplate mongoTemplate,
+            @Value("${app.export.arrowBatchRows:10000}") int batchRows,
+            @Value("${app.export.arrowMemoryLimitBytes:268435456}") long exportMemoryLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.rootAllocator = new RootAllocator();
+        this.batchRows = Math.max(1, batchRows);
+        this.exportMemoryLimit = exportMemoryLimit;
+    }
+
+    public void writeArrow(ExcelService.ResponseExport export, OutputStream out) throws IOException {
+        List<CompiledSurvey.Question> questions = export.getSurvey().getQuestions();
+        List<ColumnType> types = new ArrayList<>(questions.size());
+        List<Field> fields = new ArrayList<>(questions.size() + 2);
+        fields.add(new Field("_id", FieldType.nullable(new ArrowType.Utf8()), null));
+        fields.add(new Field("_submittedAt",
+                FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC")), null));
+        for (CompiledSurvey.Question question : questions) {
+            ColumnType type = ColumnType.of(question);
+            types.add(type);
+            fields.add(new Field(question.getName(), FieldType.nullable(type.arrowType()), null));
+        }
+
+        // The servlet stream belongs to the container
+        OutputStream target = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+
+        try (BufferAllocator allocator = rootAllocator.newChildAllocator(
+                "export-" + export.getSurvey().getId(), 0, exportMemoryLimit);
+                VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), allocator);
+                ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(target),
+                        IpcOption.DEFAULT, CommonsCompressionFactory.INSTANCE,
+                        CompressionUtil.CodecType.LZ4_FRAME)) {
+            writer.start();
+
+            AnswerColumns columns = new AnswerColumns(export.getSurvey());
+            VarCharVector idVector = (VarCharVector) root.getVector(0);
+            TimeStampMilliTZVector submittedVector = (TimeStampMilliTZVector) root.getVector(1);
+            Object[] row = new Object[questions.size()];
+
+            int rows = 0;
+            root.allocateNew();
+            try (Stream<SurveyResponse> responses = stream(export)) {
+                Iterator<SurveyResponse> it = responses.iterator();
+                while (it.hasNext()) {
+                    SurveyResponse response = it.next();
+                    columns.fill(response.getAnswers(), row);
+
+                    setString(idVector, rows, response.getId());
+                    if (response.getSubmittedAt() != null) {
+                        submittedVector.setSafe(rows, response.getSubmittedAt().getTime());
+                    } else {
+                        submittedVector.setNull(rows);
+                    }
+                    for (int c = 0; c < row.length; c++) {
+                        types.get(c).set(root.getVector(c + 2), rows, row[c], questions.get(c));
+                    }
+
+                    if (++rows == batchRows) {
+                        root.setRowCount(rows);
+                        writer.writeBatch();
+                        root.allocateNew();
+                        rows = 0;
+                    }
+                }
+            }
+            if (rows > 0) {
+                root.setRowCount(rows);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    private Stream<SurveyResponse> stream(ExcelService.ResponseExport export) {
+        if (export.getQuery() == null) {
+            return Stream.empty();
+        }
+        Query query = Query.of(export.getQuery()).cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("submittedAt", "answers");
+        return mongoTemplate.stream(query, SurveyResponse.class);
+    }
+
+    private static void setString(VarCharVector vector, int index, String value) {
+        if (value == null) {
+            vector.setNull(index);
+        } else {
+            vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private enum ColumnType {
+        NUMBER {
+            @Override
+            ArrowType arrowType() {
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            }
+
+            @Override
+            void set(FieldVector vector, int index, Object value, CompiledSurvey.Question question) {
+                Object typed = value instanceof Number ? value : coerce(value, question);
+                if (typed instanceof Number n) {
+                    ((Float8Vector) vector).setSafe(index, n.doubleValue());
+                } else {
+                    ((Float8Vector) vector).setNull(index);
+                }
+            }
+        },
+        BOOLEAN {
+            @Override
+            ArrowType arrowType() {
+                return ArrowType.Bool.INSTANCE;
+            }
+
+            @Override
+            void set(FieldVector vector, int index, Object value, CompiledSurvey.Question question) {
+                Object typed = value instanceof Boolean ? value : coerce(value, question);
+                if (typed instanceof Boolean b) {
+                    ((BitVector) vector).setSafe(index, b ? 1 : 0);
+                } else {
+                    ((BitVector) vector).setNull(index);
+                }
+            }
+        },
+        TEXT {
+            @Override
+            ArrowType arrowType() {
+                return ArrowType.Utf8.INSTANCE;
+            }
+
+            @Override
+            void set(FieldVector vector, int index, Object value, CompiledSurvey.Question question) {
+                setString((VarCharVector) vector, index, value == null ? null : AnswerColumns.text(value));
+            }
+        };
+
+        abstract ArrowType arrowType();
+
+        abstract void set(FieldVector vector, int index, Object value, CompiledSurvey.Question question);
+
+        static ColumnType of(CompiledSurvey.Question question) {
+            Object probe = ExcelService.coerceValue("1", question.getType(), question.getInputType());
+            if (probe instanceof Number || "rating".equals(question.getType())) {
+                return NUMBER;
+            }
+            if (probe instanceof Boolean) {
+                return BOOLEAN;
+            }
+            return TEXT;
+        }
+
+        private static Object coerce(Object value, CompiledSurvey.Question question) {
+            if (value == null) {
+                return null;
+            }
+            Object typed = ExcelService.coerceValue(value, question.getType(), question.getInputType());
+            if (typed instanceof String s && "rating".equals(question.getType())) {
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return typed;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rootAllocator.close();
+    }
+}
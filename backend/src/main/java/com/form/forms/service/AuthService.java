@@ -4,6 +4,7 @@ import com.form.forms.model.Role;
 import com.form.forms.model.User;
 import com.form.forms.repository.UserRepository;
 import com.form.forms.security.JwtTokenProvider;
+import com.form.forms.security.PasswordHasher;
 import com.form.forms.exception.BadRequestException;
 import com.form.forms.exception.ResourceNotFoundException;
 import org.springframework.security.access.AccessDeniedException;
@@ -13,9 +14,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class AuthService {
@@ -23,12 +24,17 @@ public class AuthService {
     private final UserRepository userRepository;
     private final JwtTokenProvider tokenProvider;
     private final org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    private final UserDirectory userDirectory;
+    private final PasswordHasher passwordHasher;
 
     public AuthService(UserRepository userRepository, JwtTokenProvider tokenProvider,
-            org.springframework.security.crypto.password.PasswordEncoder passwordEncoder) {
+            org.springframework.security.crypto.password.PasswordEncoder passwordEncoder,
+            UserDirectory userDirectory, PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
         this.tokenProvider = tokenProvider;
         this.passwordEncoder = passwordEncoder;
+        this.userDirectory = userDirectory;
+        this.passwordHasher = passwordHasher;
     }
 
     public String login(String username, String password) {
@@ -40,7 +46,13 @@ public class AuthService {
 
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            // Hashed off the request thread; throws ServiceUnavailableException when saturated
+            if (passwordHasher.matches(password, user.getPassword())) {
+                if (passwordHasher.needsRehash(user.getPassword())) {
+                    user.setPassword(passwordHasher.encode(password));
+                    userRepository.save(user);
+                    userDirectory.invalidate(user);
+                }
                 Authentication authentication = new UsernamePasswordAuthenticationToken(username, password);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
 
@@ -107,9 +119,10 @@ public class AuthService {
         // Post-save fix for Admin's organizationId
         if (role == Role.ADMIN) {
             savedUser.setOrganizationId(savedUser.getId());
-            return userRepository.save(savedUser);
+            savedUser = userRepository.save(savedUser);
         }
 
+        userDirectory.invalidate(savedUser);
         return savedUser;
     }
 
@@ -125,12 +138,14 @@ public class AuthService {
 
         ngo.getAssociatedPmIds().add(pmId);
         userRepository.save(ngo);
+        userDirectory.invalidate(ngo);
     }
 
     public void removeAssociation(String ngoId, String pmId) {
         User ngo = userRepository.findById(ngoId).orElseThrow(() -> new ResourceNotFoundException("NGO not found"));
         ngo.getAssociatedPmIds().remove(pmId);
         userRepository.save(ngo);
+        userDirectory.invalidate(ngo);
     }
 
     // Initial Super Admin creation (bypass hierarchy check)
@@ -146,7 +161,9 @@ public class AuthService {
         user.setUsername(username);
         user.setPassword(passwordEncoder.encode(password));
         user.setRole(Role.SUPER_ADMIN);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDirectory.invalidate(saved);
+        return saved;
     }
 
     private void validateHierarchy(User creator, Role newRole) {
@@ -192,7 +209,7 @@ public class AuthService {
             return List.of();
 
         String username = auth.getName();
-        User currentUser = userRepository.findByUsername(username).orElse(null);
+        User currentUser = userDirectory.findByUsername(username).orElse(null);
         if (currentUser == null)
             return List.of();
 
@@ -201,21 +218,20 @@ public class AuthService {
         }
 
         String orgId = currentUser.getOrganizationId();
-        List<User> orgUsers = userRepository.findByOrganizationId(orgId);
 
         if (currentUser.getRole() == Role.PROJECT_MANAGER) {
             // PM sees:
             // 1. Other PMs? (Maybe not)
             // 2. ONLY NGOs associated with them
             // 3. (Optional) Themselves
-            return orgUsers.stream().filter(u -> u.getId().equals(currentUser.getId()) || // Self
-                    (u.getRole() == Role.NGO && u.getAssociatedPmIds() != null
-                            && u.getAssociatedPmIds().contains(currentUser.getId())))
-                    .collect(Collectors.toList());
+            List<User> visible = new ArrayList<>();
+            visible.add(currentUser); // Self
+            visible.addAll(userDirectory.getAssociatedNgos(orgId, currentUser.getId()));
+            return visible;
         }
 
         // Admin sees all in Org
-        return orgUsers;
+        return userDirectory.getOrganizationUsers(orgId);
     }
 
     public User getUserById(String id) {
@@ -223,12 +239,13 @@ public class AuthService {
     }
 
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
+        return userDirectory.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
     }
 
     public User updateUser(String id, String name, String username, Role role) {
         User user = getUserById(id);
+        String previousUsername = user.getUsername();
 
         // Check if username is being changed and if it is available
         if (!user.getUsername().equals(username)) {
@@ -245,7 +262,10 @@ public class AuthService {
             user.setRole(role);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDirectory.invalidateUsername(previousUsername);
+        userDirectory.invalidate(saved);
+        return saved;
     }
 
     public void deleteUser(String id) {
@@ -256,5 +276,6 @@ public class AuthService {
             throw new BadRequestException("Cannot delete yourself");
         }
         userRepository.delete(user);
+        userDirectory.invalidate(user);
     }
 }
@@ -0,0 +1,261 @@
+package com.form.forms.service;
+
+import com.form.forms.model.Survey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, pre-walked view of one survey version.
+ *
+ * The raw surveyJson (pages -> elements) is read once when the survey is loaded
+ * into SurveyDefinitionCache; submission, analytics and import then use the
+ * flat question index and the name <-> minified key maps instead of re-walking
+ * the Map tree on every request.
+ *
+ * The wrapped Survey is shared between threads and must be treated as
+ * read-only. Code that modifies a survey loads it from the repository.
+ */
+public final class CompiledSurvey {
+
+    private final Survey survey;
+    private final int version;
+    private final List<Question> questions;
+    private final Map<String, Question> byName;
+    private final Map<String, Question> byLabel;
+    private final Map<String, String> nameToKey;
+    private final Map<String, String> keyToName;
+    private final SchemaValidator.ValidationPlan validationPlan;
+
+    private CompiledSurvey(Survey survey, List<Question> questions, Map<String, Question> byName,
+            Map<String, Question> byLabel, Map<String, String> nameToKey, Map<String, String> keyToName) {
+        this.survey = survey;
+        this.version = survey.getVersion() != null ? survey.getVersion() : 1;
+        this.questions = Collections.unmodifiableList(questions);
+        this.byName = Collections.unmodifiableMap(byName);
+        this.byLabel = Collections.unmodifiableMap(byLabel);
+        this.nameToKey = Collections.unmodifiableMap(nameToKey);
+        this.keyToName = Collections.unmodifiableMap(keyToName);
+        this.validationPlan = SchemaValidator.compile(this.questions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CompiledSurvey compile(Survey survey) {
+        Map<String, String> nameToKey = new HashMap<>();
+        Map<String, String> keyToName = new HashMap<>();
+        if (survey.getMinifiedKeys() != null) {
+            for (Map.Entry<String, String> entry : survey.getMinifiedKeys().entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    nameToKey.put(entry.getKey(), entry.getValue());
+                    keyToName.put(entry.getValue(), entry.getKey());
+                }
+            }
+        }
+
+        List<Question> questions = new ArrayList<>();
+        Map<String, Question> byName = new LinkedHashMap<>();
+        Map<String, Question> byLabel = new HashMap<>();
+
+        Map<String, Object> json = survey.getSurveyJson();
+        Object pages = json != null ? json.get("pages") : null;
+        if (pages instanceof List) {
+            for (Object page : (List<Object>) pages) {
+                if (!(page instanceof Map)) {
+                    continue;
+                }
+                Object elements = ((Map<String, Object>) page).get("elements");
+                if (!(elements instanceof List)) {
+                    continue;
+                }
+                for (Object element : (List<Object>) elements) {
+                    if (!(element instanceof Map)) {
+                        continue;
+                    }
+                    Map<String, Object> el = (Map<String, Object>) element;
+                    if (!(el.get("name") instanceof String name)) {
+                        continue;
+                    }
+                    Question question = new Question(el, nameToKey.getOrDefault(name, name));
+                    questions.add(question);
+                    byName.put(name, question);
+                    byLabel.put(name.toLowerCase(Locale.ROOT), question);
+                    if (question.title != null) {
+                        byLabel.putIfAbsent(question.title.toLowerCase(Locale.ROOT), question);
+                    }
+                }
+            }
+        }
+
+        return new CompiledSurvey(survey, questions, byName, byLabel, nameToKey, keyToName);
+    }
+
+    public Survey getSurvey() {
+        return survey;
+    }
+
+    public String getId() {
+        return survey.getId();
+    }
+
+    public String getOrganizationId() {
+        return survey.getOrganizationId();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Integer getStatsShardCount() {
+        return survey.getStatsShardCount();
+    }
+
+    /**
+     * Questions in definition order.
+     */
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public List<String> getQuestionNames() {
+        return new ArrayList<>(byName.keySet());
+    }
+
+    public Question getQuestion(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Case-insensitive lookup by question name or title (spreadsheet headers).
+     */
+    public Question findByLabel(String label) {
+        return label == null ? null : byLabel.get(label.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public boolean hasMinifiedKeys() {
+        return !nameToKey.isEmpty();
+    }
+
+    /**
+     * Storage key for a question name; names without a mapping are stored as-is.
+     */
+    public String toKey(String name) {
+        String key = nameToKey.get(name);
+        return key != null ? key : name;
+    }
+
+    /**
+     * Question name for a storage key; unknown keys are returned as-is.
+     */
+    public String toName(String key) {
+        String name = keyToName.get(key);
+        return name != null ? name : key;
+    }
+
+    public Map<String, String> getNameToKey() {
+        return nameToKey;
+    }
+
+    public Map<String, String> getKeyToName() {
+        return keyToName;
+    }
+
+    public SchemaValidator.ValidationPlan getValidationPlan() {
+        return validationPlan;
+    }
+
+    /**
+     * Flattened question element.
+     */
+    public static final class Question {
+        private final String name;
+        private final String title;
+        private final String type;
+        private final String inputType;
+        private final boolean required;
+        private final String key;
+        private final List<Map<String, Object>> validators;
+        private final List<Object> choices;
+        private final Map<String, Object> element;
+
+        @SuppressWarnings("unchecked")
+        Question(Map<String, Object> element, String key) {
+            this.name = (String) element.get("name");
+            this.title = element.get("title") instanceof String t ? t : null;
+            this.type = element.get("type") instanceof String t ? t : null;
+            this.inputType = element.get("inputType") instanceof String t ? t : null;
+            this.required = Boolean.TRUE.equals(element.get("isRequired"));
+            this.key = key;
+            this.element = element;
+
+            List<Map<String, Object>> validatorList = new ArrayList<>();
+            if (element.get("validators") instanceof List<?> raw) {
+                for (Object v : raw) {
+                    if (v instanceof Map) {
+                        validatorList.add(Collections.unmodifiableMap((Map<String, Object>) v));
+                    }
+                }
+            }
+            this.validators = Collections.unmodifiableList(validatorList);
+
+            List<Object> choiceValues = new ArrayList<>();
+            if (element.get("choices") instanceof List<?> raw) {
+                for (Object c : raw) {
+                    // SurveyJS choices are either plain values or { value, text } items
+                    choiceValues.add(c instanceof Map<?, ?> item && item.containsKey("value") ? item.get("value") : c);
+                }
+            }
+            this.choices = Collections.unmodifiableList(choiceValues);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDisplayName() {
+            return title != null ? title : name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getInputType() {
+            return inputType;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+
+        /**
+         * Key the answer is stored under in survey_responses.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public List<Map<String, Object>> getValidators() {
+            return validators;
+        }
+
+        public List<Object> getChoices() {
+            return choices;
+        }
+
+        /**
+         * Any other element property (min, max, hasOther, ...).
+         */
+        public Object getProperty(String property) {
+            return element.get(property);
+        }
+    }
+}
@@ -0,0 +1,765 @@
+package com.form.forms.service;
+
+import com.form.forms.model.NumericSummary;
+import com.form.forms.model.StatsGranularity;
+import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyIntradayStats;
+import com.form.forms.model.SurveyPeriodStats;
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.DayKey;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Asynchronous write-time aggregation for survey_daily_stats.
+ *
+ * Responses are queued by the request thread and folded by a single background
+ * worker into one delta per (surveyId, day). Every flush writes each touched
+ * document exactly once with a combined $inc through an unordered bulk upsert.
+ * When the queue is full the caller waits up to offerTimeoutMs and then writes
+ * its own response synchronously (caller-runs backpressure), so nothing is
+ * dropped under load. Buckets whose write fails are retried with the next
+ * flush (only the failed ones, the rest of an unordered bulk is applied) and
+ * given up after MAX_FLUSH_ATTEMPTS. Once stop() has begun, submissions are
+ * written synchronously instead of queued.
+ *
+ * A failed write may still have been applied (a timeout or stepdown after the
+ * server committed), so replays must not count twice: each bucket gets a flush
+ * id and a fixed target document on its first attempt, its $inc only matches
+ * documents whose appliedFlushes does not hold that id, and the id is pushed
+ * with it (the last MAX_APPLIED_FLUSHES are kept). A replay of an applied
+ * bucket then finds no match, its upsert hits the unique index, and the
+ * duplicate is recognised by the id. A shard marked for merging by
+ * DailyStatsCompactor is not written to either; a bucket rejected by one is
+ * retried with a new id and shard. The ids do not survive a shard being
+ * folded away by the compactor or the seal job, which only touch days and
+ * periods that closed well before a bucket's retries run out.
+ *
+ * Surveys with statsShardCount > 1 spread their daily counters over that many
+ * documents; each flush picks the next shard round-robin. Readers sum the
+ * shards and DailyStatsCompactor folds old days back into the primary document.
+ *
+ * Numeric questions additionally get count / sum / sum of squares / min / max
+ * accumulators (numericStats), so metrics are answered from the rollups.
+ *
+ * The same fold also maintains minute and hour totals in survey_intraday_stats
+ * for live monitoring; minute buckets expire through a TTL index, and the
+ * month / year documents in survey_period_stats.
+ */
+@Service
+public class DailyStatsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyStatsAggregator.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 10;
+    private static final String APPLIED_FLUSHES = "appliedFlushes";
+    private static final int MAX_APPLIED_FLUSHES = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final SurveyDefinitionCache surveyCache;
+    private final DailyStatsMigration migration;
+    private final NumericStatsBackfill numericBackfill;
+    private final BlockingQueue<SurveyResponse> queue;
+    private final long flushIntervalMs;
+    private final int flushSize;
+    private final long offerTimeoutMs;
+    private final int defaultShardCount;
+    private final long minuteRetentionMs;
+    private final long hourRetentionMs;
+
+    // Random start so several instances do not all begin on the same shard.
+    private final AtomicInteger shardCursor = new AtomicInteger(ThreadLocalRandom.current().nextInt(1024));
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // Held shared while submitting, exclusively while running or the set of
+    // surveys being backfilled changes, so no submission straddles the change
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+    // surveyId -> submissions held back while its stats are rebuilt
+    private final Map<String, List<SurveyResponse>> backfilling = new ConcurrentHashMap<>();
+    // Flush requests from other threads, served by the worker
+    private final Queue<CountDownLatch> flushRequests = new ConcurrentLinkedQueue<>();
+    // Buckets that failed in writeNow, retried by the worker's next flush
+    private final Queue<PendingStats> failedWrites = new ConcurrentLinkedQueue<>();
+
+    public DailyStatsAggregator(MongoTemplate mongoTemplate, SurveyDefinitionCache surveyCache,
+            DailyStatsMigration migration, NumericStatsBackfill numericBackfill,
+            @Value("${app.analytics.queueCapacity:10000}") int queueCapacity,
+            @Value("${app.analytics.flushIntervalMs:1000}") long flushIntervalMs,
+            @Value("${app.analytics.flushSize:500}") int flushSize,
+            @Value("${app.analytics.offerTimeoutMs:50}") long offerTimeoutMs,
+            @Value("${app.analytics.defaultShardCount:1}") int defaultShardCount,
+            @Value("${app.analytics.minuteRetentionHours:48}") long minuteRetentionHours,
+            @Value("${app.analytics.hourRetentionDays:90}") long hourRetentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.surveyCache = surveyCache;
+        this.migration = migration;
+        this.numericBackfill = numericBackfill;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushSize = flushSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.defaultShardCount = Math.max(1, defaultShardCount);
+        this.minuteRetentionMs = minuteRetentionHours * 3_600_000L;
+        this.hourRetentionMs = hourRetentionDays * 86_400_000L;
+    }
+
+    @PostConstruct
+    public void start() {
+        migration.migrateDayKeys();
+        migration.migrateIndexes();
+        numericBackfill.recordStart();
+        running = true;
+        worker = new Thread(this::runLoop, "analytics-aggregator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Drains everything still queued before the Mongo client goes away.
+     */
+    @PreDestroy
+    public void stop() {
+        submitLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        if (worker != null) {
+            try {
+                worker.join(Math.max(flushIntervalMs * 5, 5000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Anything left (worker timed out) is written by the shutdown thread.
+        List<SurveyResponse> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        PendingStats pending = new PendingStats();
+        for (SurveyResponse response : leftovers) {
+            fold(pending, response);
+        }
+        retryFailedWrites(pending);
+        for (int attempt = 0; attempt < 3 && !pending.isEmpty(); attempt++) {
+            pending = flush(pending);
+        }
+        if (!pending.isEmpty()) {
+            logger.error("Stats increments lost at shutdown: {}", pending.describe());
+        }
+    }
+
+    /**
+     * Queues a response for aggregation. Blocks for at most offerTimeoutMs when
+     * the queue is full, then falls back to a synchronous write.
+     */
+    public void submit(SurveyResponse response) {
+        submitLock.readLock().lock();
+        try {
+            List<SurveyResponse> held = backfilling.get(response.getSurveyId());
+            if (held != null) {
+                synchronized (held) {
+                    held.add(response);
+                }
+                return;
+            }
+            if (running) {
+                try {
+                    if (queue.offer(response, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            submitLock.readLock().unlock();
+        }
+        writeNow(List.of(response));
+    }
+
+    /**
+     * Folds and writes the given responses in the calling thread (backfill,
+     * backpressure fallback). Failed buckets are handed to the worker.
+     */
+    public void writeNow(List<SurveyResponse> responses) {
+        PendingStats pending = new PendingStats();
+        for (SurveyResponse response : responses) {
+            fold(pending, response);
+        }
+        PendingStats failed = flush(pending);
+        if (!failed.isEmpty()) {
+            if (running) {
+                failedWrites.add(failed);
+            } else {
+                logger.error("Stats increments lost after a failed write: {}", failed.describe());
+            }
+        }
+    }
+
+    /**
+     * Prepares a rebuild of a survey's stats from its stored responses: every
+     * submission queued so far is written, and later submissions for the
+     * survey are held until endBackfill. Call endBackfill in a finally block.
+     */
+    public void beginBackfill(String surveyId) {
+        submitLock.writeLock().lock();
+        try {
+            backfilling.putIfAbsent(surveyId, new ArrayList<>());
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        awaitFlush();
+    }
+
+    /**
+     * Releases the held submissions of a survey. Those whose id is in
+     * rebuiltIds were already counted by the rebuild and are discarded.
+     */
+    public void endBackfill(String surveyId, Set<String> rebuiltIds) {
+        List<SurveyResponse> held;
+        submitLock.writeLock().lock();
+        try {
+            held = backfilling.remove(surveyId);
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        if (held == null) {
+            return;
+        }
+        List<SurveyResponse> missed = new ArrayList<>();
+        synchronized (held) {
+            for (SurveyResponse response : held) {
+                if (response.getId() == null || !rebuiltIds.contains(response.getId())) {
+                    missed.add(response);
+                }
+            }
+        }
+        if (!missed.isEmpty()) {
+            writeNow(missed);
+        }
+    }
+
+    /**
+     * Waits until the worker has folded and written everything queued before
+     * this call.
+     */
+    private void awaitFlush() {
+        if (!running || worker == null || !worker.isAlive()) {
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        flushRequests.add(done);
+        try {
+            if (!done.await(Math.max(flushIntervalMs * 5, 5000), TimeUnit.MILLISECONDS)) {
+                logger.warn("Timed out waiting for queued stats to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runLoop() {
+        PendingStats pending = new PendingStats();
+        int folded = 0;
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+
+        while (running || !queue.isEmpty()) {
+            try {
+                long wait = Math.max(1, Math.min(deadline - System.currentTimeMillis(), 100));
+                SurveyResponse response = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (response != null) {
+                    fold(pending, response);
+                    folded++;
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (Exception e) {
+                logger.error("Failed to fold response into daily stats", e);
+            }
+
+            List<CountDownLatch> requests = new ArrayList<>();
+            for (CountDownLatch request; (request = flushRequests.poll()) != null;) {
+                requests.add(request);
+            }
+            if (!requests.isEmpty()) {
+                // Everything queued before the request is in the queue now
+                List<SurveyResponse> queued = new ArrayList<>();
+                queue.drainTo(queued);
+                for (SurveyResponse response : queued) {
+                    fold(pending, response);
+                }
+            }
+
+            if (!requests.isEmpty() || folded >= flushSize || System.currentTimeMillis() >= deadline) {
+                retryFailedWrites(pending);
+                pending = flush(pending);
+                if (!requests.isEmpty()) {
+                    // A survey being rebuilt recounts from its stored responses
+                    pending.discard(backfilling.keySet());
+                }
+                folded = 0;
+                deadline = System.currentTimeMillis() + flushIntervalMs;
+                requests.forEach(CountDownLatch::countDown);
+            }
+        }
+        retryFailedWrites(pending);
+        pending = flush(pending);
+        if (!pending.isEmpty()) {
+            // stop() makes the last attempts
+            failedWrites.add(pending);
+        }
+    }
+
+    private void retryFailedWrites(PendingStats pending) {
+        for (PendingStats failed; (failed = failedWrites.poll()) != null;) {
+            pending.retry.addAll(failed.retry);
+            pending.retryIntraday.addAll(failed.retryIntraday);
+        }
+    }
+
+    private void fold(PendingStats pending, SurveyResponse response) {
+        if (response.getSubmittedAt() == null) {
+            return;
+        }
+        Instant submittedAt = response.getSubmittedAt().toInstant();
+        int day = DayKey.of(response.getSubmittedAt());
+        LocalDate date = DayKey.toLocalDate(day);
+        String surveyId = response.getSurveyId();
+        String orgId = response.getOrganizationId();
+        int month = date.getYear() * 100 + date.getMonthValue();
+
+        StatsDelta[] targets = {
+                pending.daily.computeIfAbsent(surveyId + "|" + day,
+                        k -> new StatsDelta(surveyId, orgId, StatsGranularity.DAY, day)),
+                pending.periods.computeIfAbsent(surveyId + "|M|" + month,
+                        k -> new StatsDelta(surveyId, orgId, StatsGranularity.MONTH, month)),
+                pending.periods.computeIfAbsent(surveyId + "|Y|" + date.getYear(),
+                        k -> new StatsDelta(surveyId, orgId, StatsGranularity.YEAR, date.getYear()))
+        };
+        for (StatsDelta target : targets) {
+            target.totalResponses++;
+        }
+
+        if (response.getAnswers() != null) {
+            for (Map.Entry<String, Object> entry : response.getAnswers().entrySet()) {
+                foldAnswer(targets, entry.getKey(), entry.getValue());
+            }
+            surveyCache.find(surveyId).ifPresent(survey -> forEachNumeric(survey, response.getAnswers(),
+                    (key, value) -> {
+                        for (StatsDelta target : targets) {
+                            target.numeric.computeIfAbsent(key, k -> new NumericSummary()).add(value);
+                        }
+                    }));
+        }
+
+        long now = System.currentTimeMillis();
+        foldIntraday(pending, response, StatsGranularity.MINUTE,
+                submittedAt.truncatedTo(ChronoUnit.MINUTES), minuteRetentionMs, now);
+        foldIntraday(pending, response, StatsGranularity.HOUR,
+                submittedAt.atZone(DayKey.zone()).truncatedTo(ChronoUnit.HOURS).toInstant(),
+                hourRetentionMs, now);
+    }
+
+    private void foldIntraday(PendingStats pending, SurveyResponse response, StatsGranularity granularity,
+            Instant bucket, long retentionMs, long now) {
+        Date expireAt = retentionMs > 0 ? new Date(bucket.toEpochMilli() + retentionMs) : null;
+        if (expireAt != null && expireAt.getTime() <= now) {
+            // Already past retention (e.g. backfill of old data), TTL would remove it anyway
+            return;
+        }
+        String key = response.getSurveyId() + "|" + granularity + "|" + bucket.toEpochMilli();
+        IntradayDelta delta = pending.intraday.computeIfAbsent(key, k -> new IntradayDelta(response.getSurveyId(),
+                response.getOrganizationId(), granularity, Date.from(bucket), expireAt));
+        delta.totalResponses++;
+    }
+
+    private void foldAnswer(StatsDelta[] targets, String key, Object value) {
+        if (value == null)
+            return;
+
+        if (value instanceof List) {
+            // Unwind Array (Checkbox, Tagbox)
+            for (Object item : (List<?>) value) {
+                if (item != null) {
+                    increment(targets, "questionStats." + key + "." + optionKey(item));
+                }
+            }
+        } else {
+            // Single Value (Radio, Dropdown, Boolean)
+            increment(targets, "questionStats." + key + "." + optionKey(value));
+        }
+    }
+
+    // Normalized numbers are Doubles; 3.0 is counted as "3" like the choice it stands for
+    private static String optionKey(Object value) {
+        return sanitizeKey(value instanceof Number n ? AnswerNormalizer.numberText(n) : value.toString());
+    }
+
+    /**
+     * Numeric answers of a response, keyed by the question's minified key
+     * whether the response stores the key or the question name.
+     */
+    static void forEachNumeric(CompiledSurvey survey, Map<String, Object> answers,
+            BiConsumer<String, Double> consumer) {
+        for (Map.Entry<String, Object> entry : answers.entrySet()) {
+            CompiledSurvey.Question question = survey.getQuestion(survey.toName(entry.getKey()));
+            if (question == null || !AnswerNormalizer.isNumeric(question)) {
+                continue;
+            }
+            if (AnswerNormalizer.normalize(question, entry.getValue()) instanceof Double value
+                    && Double.isFinite(value)) {
+                consumer.accept(sanitizeKey(question.getKey()), value);
+            }
+        }
+    }
+
+    private void increment(StatsDelta[] targets, String path) {
+        for (StatsDelta target : targets) {
+            target.increment(path);
+        }
+    }
+
+    // MongoDB keys cannot contain '.' or '$'.
+    static String sanitizeKey(String key) {
+        return key.replace(".", "_").replace("$", "_");
+    }
+
+    /**
+     * Writes everything pending and returns the buckets that could not be
+     * written, to be retried with the next flush.
+     */
+    private PendingStats flush(PendingStats pending) {
+        Map<String, Integer> shardCounts = new HashMap<>();
+        List<StatsDelta> daily = new ArrayList<>(pending.daily.values());
+        List<StatsDelta> periods = new ArrayList<>(pending.periods.values());
+        for (StatsDelta delta : pending.retry) {
+            (delta.granularity == StatsGranularity.DAY ? daily : periods).add(delta);
+        }
+        List<IntradayDelta> intraday = new ArrayList<>(pending.intraday.values());
+        intraday.addAll(pending.retryIntraday);
+
+        PendingStats failed = new PendingStats();
+        keepForRetry(failed.retry, flushCounters(daily, SurveyDailyStats.class, shardCounts));
+        keepForRetry(failed.retry, flushCounters(periods, SurveyPeriodStats.class, shardCounts));
+        keepForRetry(failed.retryIntraday, flushIntraday(intraday));
+        return failed;
+    }
+
+    private <T extends Retryable> void keepForRetry(List<T> retry, List<T> failed) {
+        for (T delta : failed) {
+            if (++delta.attempts < MAX_FLUSH_ATTEMPTS) {
+                retry.add(delta);
+            } else {
+                logger.error("Giving up on stats bucket after {} attempts: {}", delta.attempts, delta);
+            }
+        }
+    }
+
+    /**
+     * The buckets of a failed bulk write that were not applied: the rejected
+     * ones for a partial failure, all of them when the outcome is unknown.
+     * Replaying an applied bucket is harmless (see the class comment).
+     */
+    private <T extends Retryable> List<T> failedDeltas(List<T> deltas, Exception e, Class<?> target) {
+        List<T> failed = new ArrayList<>();
+        if (e instanceof BulkOperationException bulk) {
+            for (BulkWriteError error : bulk.getErrors()) {
+                T delta = deltas.get(error.getIndex());
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    failed.add(delta);
+                    continue;
+                }
+                Boolean applied = isApplied(delta, target);
+                if (Boolean.FALSE.equals(applied)) {
+                    // The target exists but cannot take the bucket (a shard being merged):
+                    // pick a new target and id on the retry
+                    delta.flushId = null;
+                }
+                if (!Boolean.TRUE.equals(applied)) {
+                    failed.add(delta);
+                }
+            }
+        } else {
+            failed.addAll(deltas);
+        }
+        if (!failed.isEmpty()) {
+            logger.warn("Failed to flush {} of {} {} buckets, retrying: {}", failed.size(), deltas.size(),
+                    target.getSimpleName(), e.getMessage());
+        }
+        return failed;
+    }
+
+    /**
+     * Whether an earlier attempt of the bucket was applied, or null when that
+     * cannot be checked. A duplicate key error is otherwise a concurrent
+     * insert of the same document or a shard marked by DailyStatsCompactor.
+     */
+    private Boolean isApplied(Retryable delta, Class<?> target) {
+        try {
+            return mongoTemplate.exists(new Query(delta.key().and(APPLIED_FLUSHES).is(delta.flushId)), target);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private List<StatsDelta> flushCounters(List<StatsDelta> deltas, Class<?> target,
+            Map<String, Integer> shardCounts) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target);
+            for (StatsDelta delta : deltas) {
+                if (delta.flushId == null) {
+                    int shardCount = shardCounts.computeIfAbsent(delta.surveyId, this::resolveShardCount);
+                    delta.shard = shardCount > 1 ? Math.floorMod(shardCursor.getAndIncrement(), shardCount) : 0;
+                    delta.flushId = new ObjectId();
+                }
+
+                Update update = new Update();
+                if (delta.granularity == StatsGranularity.DAY) {
+                    // Human-readable label, kept for exports and the seal job
+                    update.setOnInsert("date", DayKey.format(delta.period));
+                }
+                update.setOnInsert("organizationId", delta.organizationId);
+                update.inc("totalResponses", delta.totalResponses);
+                for (Map.Entry<String, Integer> counter : delta.counters.entrySet()) {
+                    update.inc(counter.getKey(), counter.getValue());
+                }
+                for (Map.Entry<String, NumericSummary> numeric : delta.numeric.entrySet()) {
+                    incNumeric(update, "numericStats." + numeric.getKey(), numeric.getValue());
+                }
+                ops.upsert(guarded(delta), applied(update, delta));
+            }
+            ops.execute();
+            return List.of();
+        } catch (Exception e) {
+            return failedDeltas(deltas, e, target);
+        }
+    }
+
+    /**
+     * Adds a summary to the one stored at path: counts and sums are
+     * incremented, min and max only move outwards.
+     */
+    static void incNumeric(Update update, String path, NumericSummary summary) {
+        update.inc(path + ".count", summary.getCount());
+        update.inc(path + ".sum", summary.getSum());
+        update.inc(path + ".sumSquares", summary.getSumSquares());
+        if (summary.getMin() != null) {
+            update.min(path + ".min", summary.getMin());
+        }
+        if (summary.getMax() != null) {
+            update.max(path + ".max", summary.getMax());
+        }
+    }
+
+    private List<IntradayDelta> flushIntraday(List<IntradayDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SurveyIntradayStats.class);
+            for (IntradayDelta delta : deltas) {
+                if (delta.flushId == null) {
+                    delta.flushId = new ObjectId();
+                }
+                Update update = new Update();
+                update.setOnInsert("organizationId", delta.organizationId);
+                if (delta.expireAt != null) {
+                    update.setOnInsert("expireAt", delta.expireAt);
+                }
+                update.inc("totalResponses", delta.totalResponses);
+                ops.upsert(guarded(delta), applied(update, delta));
+            }
+            ops.execute();
+            return List.of();
+        } catch (Exception e) {
+            return failedDeltas(deltas, e, SurveyIntradayStats.class);
+        }
+    }
+
+    // The bucket's document, unless this flush id was already applied to it or
+    // DailyStatsCompactor is folding it away (mergeId is never set on intraday buckets)
+    private static Query guarded(Retryable delta) {
+        return new Query(delta.key().and(APPLIED_FLUSHES).ne(delta.flushId).and("mergeId").exists(false));
+    }
+
+    private static Update applied(Update update, Retryable delta) {
+        update.push(APPLIED_FLUSHES).slice(-MAX_APPLIED_FLUSHES).each(delta.flushId);
+        return update;
+    }
+
+    private int resolveShardCount(String surveyId) {
+        return surveyCache.find(surveyId)
+                .map(CompiledSurvey::getStatsShardCount)
+                .filter(count -> count != null && count > 0)
+                .orElse(defaultShardCount);
+    }
+
+    /**
+     * Everything folded since the last flush.
+     */
+    private static final class PendingStats {
+        final Map<String, StatsDelta> daily = new HashMap<>();
+        final Map<String, StatsDelta> periods = new HashMap<>();
+        final Map<String, IntradayDelta> intraday = new HashMap<>();
+        // Failed in an earlier flush; written alongside the fresh buckets
+        final List<StatsDelta> retry = new ArrayList<>();
+        final List<IntradayDelta> retryIntraday = new ArrayList<>();
+
+        void discard(Set<String> surveyIds) {
+            retry.removeIf(delta -> surveyIds.contains(delta.surveyId));
+            retryIntraday.removeIf(delta -> surveyIds.contains(delta.surveyId));
+        }
+
+        boolean isEmpty() {
+            return daily.isEmpty() && periods.isEmpty() && intraday.isEmpty() && retry.isEmpty()
+                    && retryIntraday.isEmpty();
+        }
+
+        String describe() {
+            List<Object> buckets = new ArrayList<>(daily.values());
+            buckets.addAll(periods.values());
+            buckets.addAll(intraday.values());
+            buckets.addAll(retry);
+            buckets.addAll(retryIntraday);
+            return buckets.toString();
+        }
+    }
+
+    private abstract static class Retryable {
+        // Failed flushes so far
+        int attempts;
+        // Set on the first flush and kept for the retries
+        ObjectId flushId;
+
+        /**
+         * The target document.
+         */
+        abstract Criteria key();
+    }
+
+    /**
+     * Pending increments for one survey_daily_stats (DAY) or
+     * survey_period_stats (MONTH, YEAR) document.
+     */
+    private static final class StatsDelta extends Retryable {
+        final String surveyId;
+        final String organizationId;
+        final StatsGranularity granularity;
+        // DAY: epoch day, MONTH: yyyyMM, YEAR: yyyy
+        final int period;
+        int totalResponses;
+        final Map<String, Integer> counters = new HashMap<>();
+        // Minified question key -> values folded since the last flush
+        final Map<String, NumericSummary> numeric = new HashMap<>();
+        // Chosen on the first flush, so retries go to the same document
+        int shard;
+
+        StatsDelta(String surveyId, String organizationId, StatsGranularity granularity, int period) {
+            this.surveyId = surveyId;
+            this.organizationId = organizationId;
+            this.granularity = granularity;
+            this.period = period;
+        }
+
+        void increment(String path) {
+            counters.merge(path, 1, Integer::sum);
+        }
+
+        @Override
+        Criteria key() {
+            Criteria criteria = Criteria.where("surveyId").is(surveyId);
+            if (granularity == StatsGranularity.DAY) {
+                criteria.and("day").is(period);
+            } else {
+                criteria.and("granularity").is(granularity).and("period").is(period);
+            }
+            // Shard 0 is the primary document and never stores the field, which keeps
+            // pre-sharding documents matching.
+            if (shard == 0) {
+                criteria.and("shard").exists(false);
+            } else {
+                criteria.and("shard").is(shard);
+            }
+            return criteria;
+        }
+
+        @Override
+        public String toString() {
+            return surveyId + " " + granularity + " " + period + ": +" + totalResponses + " responses " + counters;
+        }
+    }
+
+    /**
+     * Pending increment for one survey_intraday_stats bucket.
+     */
+    private static final class IntradayDelta extends Retryable {
+        final String surveyId;
+        final String organizationId;
+        final StatsGranularity granularity;
+        final Date bucket;
+        final Date expireAt;
+        int totalResponses;
+
+        IntradayDelta(String surveyId, String organizationId, StatsGranularity granularity, Date bucket,
+                Date expireAt) {
+            this.surveyId = surveyId;
+            this.organizationId = organizationId;
+            this.granularity = granularity;
+            this.bucket = bucket;
+            this.expireAt = expireAt;
+        }
+
+        @Override
+        Criteria key() {
+            return Criteria.where("surveyId").is(surveyId).and("granularity").is(granularity).and("bucket").is(bucket);
+        }
+
+        @Override
+        public String toString() {
+            return surveyId + " " + granularity + " " + bucket.toInstant() + ": +" + totalResponses + " responses";
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.form.forms.service;
+
+import com.form.forms.model.NumericSummary;
+import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyPeriodStats;
+import com.form.forms.util.DayKey;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds sharded survey_daily_stats documents back into the primary document
+ * once a day is no longer receiving traffic, and late survey_period_stats
+ * shards into their sealed period document (readers only use the sealed
+ * primary of a closed period).
+ *
+ * A shard is first marked with a merge id (findAndModify), then its counters
+ * are added to the primary, then it is deleted. The primary remembers the
+ * merge ids it has applied (appliedMerges), so a run that stopped half-way is
+ * resumed by the next one without adding the shard twice, and a failure never
+ * leaves the counts only in memory.
+ */
+@Component
+public class DailyStatsCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyStatsCompactor.class);
+    private static final String APPLIED_MERGES = "appliedMerges";
+    private static final int MAX_APPLIED_MERGES = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final int compactAfterDays;
+    private final int batchSize;
+
+    public DailyStatsCompactor(MongoTemplate mongoTemplate,
+            @Value("${app.analytics.compactAfterDays:2}") int compactAfterDays,
+            @Value("${app.analytics.compactBatchSize:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.compactAfterDays = compactAfterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.compactIntervalMs:3600000}", initialDelayString = "${app.analytics.compactIntervalMs:3600000}")
+    public void compact() {
+        int cutoff = DayKey.of(LocalDate.now(DayKey.zone()).minusDays(compactAfterDays));
+        Query query = new Query(Criteria.where("shard").exists(true).and("day").lt(cutoff)).limit(batchSize);
+
+        int merged = 0;
+        int mergedInBatch;
+        List<SurveyDailyStats> shards;
+        do {
+            mergedInBatch = 0;
+            shards = mongoTemplate.find(query, SurveyDailyStats.class);
+            for (SurveyDailyStats shard : shards) {
+                if (mergeShard(shard)) {
+                    mergedInBatch++;
+                }
+            }
+            merged += mergedInBatch;
+        } while (shards.size() == batchSize && mergedInBatch > 0);
+
+        if (merged > 0) {
+            logger.info("Compacted {} daily stats shards older than {}", merged, DayKey.format(cutoff));
+        }
+
+        compactPeriods();
+    }
+
+    /**
+     * Shards of a period are removed when it is sealed, but a late increment
+     * (import of old responses, retried flush) recreates them. Such shards are
+     * added to the sealed primary; shards of unsealed periods are left to
+     * StatsRollupService, which rebuilds the period from the daily documents.
+     */
+    private void compactPeriods() {
+        int merged = 0;
+        String lastId = null;
+        List<SurveyPeriodStats> shards;
+        do {
+            Criteria criteria = Criteria.where("shard").exists(true);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(new ObjectId(lastId));
+            }
+            shards = mongoTemplate.find(new Query(criteria).with(Sort.by("_id")).limit(batchSize),
+                    SurveyPeriodStats.class);
+            for (SurveyPeriodStats shard : shards) {
+                if (mergePeriodShard(shard)) {
+                    merged++;
+                }
+                lastId = shard.getId();
+            }
+        } while (shards.size() == batchSize);
+
+        if (merged > 0) {
+            logger.info("Folded {} late period stats shards into sealed periods", merged);
+        }
+    }
+
+    private boolean mergePeriodShard(SurveyPeriodStats shard) {
+        if (!mongoTemplate.exists(sealedPrimary(shard), SurveyPeriodStats.class)) {
+            return false;
+        }
+        SurveyPeriodStats claimed = claim(shard.getId(), shard.getMergeId(), SurveyPeriodStats.class);
+        if (claimed == null) {
+            return false;
+        }
+        ObjectId mergeId = claimed.getMergeId();
+
+        Update update = counterUpdate(claimed.getTotalResponses(), claimed.getQuestionStats(),
+                claimed.getNumericStats());
+        update.push(APPLIED_MERGES).slice(-MAX_APPLIED_MERGES).each(mergeId);
+        try {
+            // Not an upsert: if the period was unsealed meanwhile, the shard is left to the next seal
+            Query unapplied = sealedPrimary(claimed).addCriteria(Criteria.where(APPLIED_MERGES).ne(mergeId));
+            if (mongoTemplate.updateFirst(unapplied, update, SurveyPeriodStats.class).getMatchedCount() == 0
+                    && !mongoTemplate.exists(new Query(periodPrimary(claimed).and(APPLIED_MERGES).is(mergeId)),
+                            SurveyPeriodStats.class)) {
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(claimed.getId()).and("mergeId").is(mergeId)),
+                        new Update().unset("mergeId"), SurveyPeriodStats.class);
+                return false;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to fold period stats shard {} of survey {} into {} {}; it stays marked for the next run, "
+                    + "pending $inc: {}", claimed.getShard(), claimed.getSurveyId(), claimed.getGranularity(),
+                    claimed.getPeriod(), update.getUpdateObject().toJson(), e);
+            return false;
+        }
+        return removeMerged(claimed.getId(), mergeId, SurveyPeriodStats.class);
+    }
+
+    private static Criteria periodPrimary(SurveyPeriodStats shard) {
+        return Criteria.where("surveyId").is(shard.getSurveyId())
+                .and("granularity").is(shard.getGranularity())
+                .and("period").is(shard.getPeriod())
+                .and("shard").exists(false);
+    }
+
+    private static Query sealedPrimary(SurveyPeriodStats shard) {
+        return new Query(periodPrimary(shard).and("sealed").is(true));
+    }
+
+    private boolean mergeShard(SurveyDailyStats shard) {
+        SurveyDailyStats claimed = claim(shard.getId(), shard.getMergeId(), SurveyDailyStats.class);
+        if (claimed == null) {
+            return false;
+        }
+        ObjectId mergeId = claimed.getMergeId();
+
+        Update update = counterUpdate(claimed.getTotalResponses(), claimed.getQuestionStats(),
+                claimed.getNumericStats());
+        update.setOnInsert("organizationId", claimed.getOrganizationId());
+        update.setOnInsert("date", claimed.getDate());
+        update.push(APPLIED_MERGES).slice(-MAX_APPLIED_MERGES).each(mergeId);
+
+        try {
+            try {
+                mongoTemplate.upsert(new Query(dailyPrimary(claimed).and(APPLIED_MERGES).ne(mergeId)), update,
+                        SurveyDailyStats.class);
+            } catch (DuplicateKeyException e) {
+                // Either an earlier run added the shard and stopped before removing it,
+                // or the primary was inserted concurrently
+                if (!mongoTemplate.exists(new Query(dailyPrimary(claimed).and(APPLIED_MERGES).is(mergeId)),
+                        SurveyDailyStats.class)) {
+                    throw e;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to merge stats shard {} of survey {} on {}; it stays marked for the next run, "
+                    + "pending $inc: {}", claimed.getShard(), claimed.getSurveyId(), claimed.getDate(),
+                    update.getUpdateObject().toJson(), e);
+            return false;
+        }
+        return removeMerged(claimed.getId(), mergeId, SurveyDailyStats.class);
+    }
+
+    private static Criteria dailyPrimary(SurveyDailyStats shard) {
+        return Criteria.where("surveyId").is(shard.getSurveyId())
+                .and("day").is(shard.getDay())
+                .and("shard").exists(false);
+    }
+
+    /**
+     * Marks a shard as being merged, which stops the aggregator from writing
+     * to it, and returns it with its merge id. A shard already marked by a run
+     * that stopped half-way is resumed with the same id.
+     */
+    private <T> T claim(String id, ObjectId mergeId, Class<T> type) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id).and("mergeId").is(mergeId)),
+                new Update().set("mergeId", mergeId != null ? mergeId : new ObjectId()),
+                FindAndModifyOptions.options().returnNew(true), type);
+    }
+
+    private boolean removeMerged(String id, ObjectId mergeId, Class<?> type) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(id).and("mergeId").is(mergeId)), type);
+            return true;
+        } catch (Exception e) {
+            // Counted twice until then: the primary already holds the shard's counts
+            logger.error("Failed to remove merged stats shard {}; the next run removes it", id, e);
+            return false;
+        }
+    }
+
+    // $inc of everything a shard counted
+    private static Update counterUpdate(int totalResponses, Map<String, Map<String, Integer>> questionStats,
+            Map<String, NumericSummary> numericStats) {
+        Update update = new Update();
+        update.inc("totalResponses", totalResponses);
+        if (questionStats != null) {
+            for (Map.Entry<String, Map<String, Integer>> question : questionStats.entrySet()) {
+                if (question.getValue() == null)
+                    continue;
+                for (Map.Entry<String, Integer> option : question.getValue().entrySet()) {
+                    update.inc("questionStats." + question.getKey() + "." + option.getKey(), option.getValue());
+                }
+            }
+        }
+
+        if (numericStats != null) {
+            for (Map.Entry<String, NumericSummary> numeric : numericStats.entrySet()) {
+                if (numeric.getValue() != null) {
+                    DailyStatsAggregator.incNumeric(update, "numericStats." + numeric.getKey(), numeric.getValue());
+                }
+            }
+        }
+        return update;
+    }
+}
@@ -0,0 +1,138 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyIntradayStats;
+import com.form.forms.model.SurveyPeriodStats;
+import com.form.forms.util.DayKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * One-off migration of survey_daily_stats from the "yyyy-MM-dd" string key to
+ * the integer epoch-day key, and from the unique {surveyId, date} index to the
+ * unique {surveyId, day, shard} index. Also creates the survey_intraday_stats
+ * and survey_period_stats indexes. Idempotent; runs before the aggregator starts writing so no day is
+ * split across an old and a new document.
+ */
+@Component
+public class DailyStatsMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyStatsMigration.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final String LEGACY_INDEX = "survey_date_idx";
+    private static final String DAY_SHARD_INDEX = "survey_day_shard_idx";
+    private static final String PERIOD_SHARD_INDEX = "survey_period_shard_idx";
+    private static final String INTRADAY_BUCKET_INDEX = "survey_granularity_bucket_idx";
+    private static final String INTRADAY_TTL_INDEX = "expireAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    public DailyStatsMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void migrateDayKeys() {
+        Query query = new Query(Criteria.where("day").exists(false).and("date").exists(true)).limit(BATCH_SIZE);
+        query.fields().include("date");
+
+        int migrated = 0;
+        List<SurveyDailyStats> batch;
+        do {
+            batch = mongoTemplate.find(query, SurveyDailyStats.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SurveyDailyStats.class);
+            for (SurveyDailyStats stats : batch) {
+                Integer day = null;
+                try {
+                    day = DayKey.parse(stats.getDate());
+                } catch (DateTimeParseException e) {
+                    // Stored as null so it is not picked up again; such a document is unreadable anyway
+                    logger.warn("Daily stats {} has an invalid date '{}'", stats.getId(), stats.getDate());
+                }
+                ops.updateOne(new Query(Criteria.where("_id").is(stats.getId())), new Update().set("day", day));
+            }
+            ops.execute();
+            migrated += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+
+        if (migrated > 0) {
+            logger.info("Migrated {} daily stats documents to epoch-day keys", migrated);
+        }
+    }
+
+    /**
+     * Replaces the baseline unique {surveyId, date} index, which rejects counter
+     * shards of the same day, with the unique {surveyId, day, shard} index.
+     */
+    public void migrateIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(SurveyDailyStats.class);
+        try {
+            boolean legacy = indexOps.getIndexInfo().stream().anyMatch(info -> LEGACY_INDEX.equals(info.getName()));
+            if (legacy) {
+                indexOps.dropIndex(LEGACY_INDEX);
+                logger.info("Dropped daily stats index {}", LEGACY_INDEX);
+            }
+        } catch (Exception e) {
+            logger.error("Could not drop daily stats index {}", LEGACY_INDEX, e);
+        }
+        try {
+            indexOps.createIndex(new Index()
+                    .on("surveyId", Sort.Direction.ASC)
+                    .on("day", Sort.Direction.ASC)
+                    .on("shard", Sort.Direction.ASC)
+                    .named(DAY_SHARD_INDEX)
+                    .unique());
+        } catch (Exception e) {
+            // Usually several documents left with a null day by an invalid date; upserts still work without it
+            logger.error("Could not create unique index {} on daily stats", DAY_SHARD_INDEX, e);
+        }
+
+        try {
+            mongoTemplate.indexOps(SurveyPeriodStats.class).createIndex(new Index()
+                    .on("surveyId", Sort.Direction.ASC)
+                    .on("granularity", Sort.Direction.ASC)
+                    .on("period", Sort.Direction.ASC)
+                    .on("shard", Sort.Direction.ASC)
+                    .named(PERIOD_SHARD_INDEX)
+                    .unique());
+        } catch (Exception e) {
+            logger.error("Could not create unique index {} on period stats", PERIOD_SHARD_INDEX, e);
+        }
+
+        IndexOperations intradayOps = mongoTemplate.indexOps(SurveyIntradayStats.class);
+        try {
+            intradayOps.createIndex(new Index()
+                    .on("surveyId", Sort.Direction.ASC)
+                    .on("granularity", Sort.Direction.ASC)
+                    .on("bucket", Sort.Direction.ASC)
+                    .named(INTRADAY_BUCKET_INDEX)
+                    .unique());
+        } catch (Exception e) {
+            logger.error("Could not create unique index {} on intraday stats", INTRADAY_BUCKET_INDEX, e);
+        }
+        try {
+            // Each document carries its own expiry instant
+            intradayOps.createIndex(new Index()
+                    .on("expireAt", Sort.Direction.ASC)
+                    .named(INTRADAY_TTL_INDEX)
+                    .expire(Duration.ZERO));
+        } catch (Exception e) {
+            logger.error("Could not create TTL index {} on intraday stats", INTRADAY_TTL_INDEX, e);
+        }
+    }
+}
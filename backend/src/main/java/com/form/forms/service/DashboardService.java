@@ -2,6 +2,7 @@ package com.form.forms.service;
 
 import com.form.forms.model.*;
 import com.form.forms.repository.*;
+import com.form.forms.security.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -26,9 +27,6 @@ public class DashboardService {
     @Autowired
     private ProjectRepository projectRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
     public Map<String, Object> getNgoDashboardSummary(String ngoId) {
         Map<String, Object> response = new HashMap<>();
         String orgId = com.form.forms.tenant.OrganizationContext.getOrganizationId();
@@ -63,36 +61,10 @@ public class DashboardService {
         return response;
     }
 
-    private Role getCurrentUserRole() {
-        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder
-                .getContext().getAuthentication();
-        if (auth != null && auth.getAuthorities() != null) {
-            String roleName = auth.getAuthorities().stream()
-                    .findFirst()
-                    .map(a -> a.getAuthority().replace("ROLE_", ""))
-                    .orElse(null);
-            if (roleName != null) {
-                return Role.valueOf(roleName);
-            }
-        }
-        return null;
-    }
-
-    private String getCurrentUserId() {
-        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder
-                .getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            return userRepository.findByUsername(auth.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
-        return null;
-    }
-
     public Map<String, Object> getPmDashboardDetail(String pmId) {
         // Security Check: Ensure PM is requesting their own dashboard (or is Admin)
-        String currentUserId = getCurrentUserId();
-        Role currentRole = getCurrentUserRole();
+        String currentUserId = CurrentUser.getUserId();
+        Role currentRole = CurrentUser.getRole();
 
         if (currentRole == Role.PROJECT_MANAGER) {
             if (currentUserId == null || !currentUserId.equals(pmId)) {
@@ -2,164 +2,199 @@ package com.form.forms.service;
 
 import com.form.forms.dto.ImportSummary;
 import com.form.forms.model.ResponseStatus;
-import com.form.forms.model.Survey;
 import com.form.forms.model.SurveyResponse;
-import com.form.forms.repository.SurveyRepository;
 import com.form.forms.repository.SurveyResponseRepository;
+import com.form.forms.security.CurrentUser;
 import com.form.forms.tenant.OrganizationContext;
+import com.form.forms.util.ResponseFingerprint;
+import com.mongodb.bulk.BulkWriteError;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
 public class ExcelService {
 
-    private final SurveyRepository surveyRepository;
+    private static final Logger logger = LoggerFactory.getLogger(ExcelService.class);
+
+    private final SurveyDefinitionCache surveyCache;
     private final SurveyResponseRepository responseRepository;
     private final SchemaValidator schemaValidator;
     private final AnalyticsService analyticsService;
-    private final com.form.forms.repository.UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final int importBatchSize;
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int EXPORT_CURSOR_BATCH_SIZE = 1000;
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
 
-    public ExcelService(SurveyRepository surveyRepository, SurveyResponseRepository responseRepository,
+    public ExcelService(SurveyDefinitionCache surveyCache, SurveyResponseRepository responseRepository,
             SchemaValidator schemaValidator, AnalyticsService analyticsService,
-            com.form.forms.repository.UserRepository userRepository) {
-        this.surveyRepository = surveyRepository;
+            MongoTemplate mongoTemplate,
+            @Value("${app.import.batchSize:500}") int importBatchSize) {
+        this.surveyCache = surveyCache;
         this.responseRepository = responseRepository;
         this.schemaValidator = schemaValidator;
         this.analyticsService = analyticsService;
-        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.importBatchSize = Math.max(1, importBatchSize);
     }
 
     // ==================================================================================
     // EXPORT
     // ==================================================================================
-    public ByteArrayInputStream exportToExcel(String surveyId) throws IOException {
-        Survey survey = surveyRepository.findById(surveyId)
-                .orElseThrow(() -> new RuntimeException("Survey not found"));
+    /**
+     * Resolves the survey and the caller's row filter. Runs on the request
+     * thread, where the security and organization context are available;
+     * the returned export can then be written from any thread.
+     */
+    public ResponseExport prepareExport(String surveyId) {
+        CompiledSurvey survey = surveyCache.get(surveyId);
 
-        // Fetch responses
         String organizationId = OrganizationContext.getOrganizationId();
         // Permission check: Should ensure user has access to survey first.
         if (organizationId != null && !survey.getOrganizationId().equals(organizationId)) {
             throw new RuntimeException("Access Denied");
         }
 
-        // --- SECURITY ENHANCEMENT: Filter NGO Exports ---
-        List<SurveyResponse> responses;
-        com.form.forms.model.Role role = getCurrentUserRole();
+        Query query = new Query(Criteria.where("surveyId").is(surveyId));
+
+        // --- SECURITY ENHANCEMENT: NGOs export only their own responses ---
+        com.form.forms.model.Role role = CurrentUser.getRole();
         if (role == com.form.forms.model.Role.NGO) {
-            String userId = getCurrentUserId();
-            if (userId != null) {
-                // Fetch filtered responses for NGO
-                // Using MongoTemplate or custom repository method would be cleaner,
-                // but here we can just filter in memory or fetch all and filter
-                // (Repository method preferred for performance)
-                // Let's assume responseRepository finds by surveyId and respondentId
-                // Or use stream filter here if list is small.
-                // Better: responses =
-                // responseRepository.findBySurveyIdAndRespondentId(surveyId, userId);
-                // I will add this method to repository or modify logic.
-                // Checking if method exists first?
-                // Let's use stream since findBySurveyIdAndRespondentId might not exist yet.
-                // Actually, let's just use stream filter for now, safe and simple.
-                List<SurveyResponse> allResponses = responseRepository.findBySurveyId(surveyId);
-                responses = allResponses.stream()
-                        .filter(r -> userId.equals(r.getRespondentId()))
-                        .collect(java.util.stream.Collectors.toList());
-            } else {
-                responses = new ArrayList<>();
+            String userId = CurrentUser.getUserId();
+            if (userId == null) {
+                return new ResponseExport(survey, null);
             }
-        } else {
-            // Project Managers and Admins see all for the survey (within Org scope enforced
-            // by repo/context)
-            responses = responseRepository.findBySurveyId(surveyId);
+            query.addCriteria(Criteria.where("respondentId").is(userId));
         }
+        // Project Managers and Admins see all for the survey (within Org scope enforced
+        // by repo/context)
+        return new ResponseExport(survey, query);
+    }
 
-        try (Workbook workbook = new SXSSFWorkbook(100)) { // Keep 100 rows in memory, rest on disk
-            Sheet sheet = workbook.createSheet("Responses");
+    /**
+     * Survey plus the response query an export reads.
+     */
+    public static final class ResponseExport {
+        private final CompiledSurvey survey;
+        private final Query query; // null: the caller may not see any response
 
-            // 1. Build Headers from Survey Definition
-            List<String> questions = getQuestionNames(survey);
+        ResponseExport(CompiledSurvey survey, Query query) {
+            this.survey = survey;
+            this.query = query;
+        }
 
-            Row headerRow = sheet.createRow(0);
-            int colIdx = 0;
-            headerRow.createCell(colIdx++).setCellValue("Response ID");
-            headerRow.createCell(colIdx++).setCellValue("Submitted At");
+        public CompiledSurvey getSurvey() {
+            return survey;
+        }
 
-            for (String q : questions) {
-                headerRow.createCell(colIdx++).setCellValue(q);
-            }
+        Query getQuery() {
+            return query;
+        }
+    }
 
-            // 2. Populate Data
+    /**
+     * Streams responses from a Mongo cursor into an SXSSF workbook written
+     * straight to out. SXSSF keeps 100 rows in memory and spills the rest to
+     * a compressed temp file, so heap use does not depend on the number of
+     * responses. Sheets roll over at the XLSX row limit.
+     */
+    public void writeExcel(ResponseExport export, OutputStream out) throws IOException {
+        CompiledSurvey survey = export.survey;
+        List<CompiledSurvey.Question> questions = survey.getQuestions();
+        AnswerColumns columns = new AnswerColumns(survey);
+        Object[] values = new Object[columns.size()];
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100); // Keep 100 rows in memory, rest on disk
+        workbook.setCompressTempFiles(true);
+        try {
+            int sheetCount = 1;
+            Sheet sheet = createExportSheet(workbook, "Responses", questions);
             int rowIdx = 1;
-            for (SurveyResponse response : responses) {
-                Row row = sheet.createRow(rowIdx++);
-                int cellIdx = 0;
-
-                // Metadata
-                row.createCell(cellIdx++).setCellValue(response.getId());
-                row.createCell(cellIdx++)
-                        .setCellValue(response.getSubmittedAt() != null ? response.getSubmittedAt().toString() : "");
-
-                // Answers
-                Map<String, Object> answers = response.getAnswers();
-                if (answers != null) {
-                    for (String q : questions) {
-                        Cell cell = row.createCell(cellIdx++);
-                        Object validAns = answers.get(q);
-
-                        if (validAns == null && answers.containsKey("answers")
-                                && answers.get("answers") instanceof Map) {
-                            validAns = ((Map<?, ?>) answers.get("answers")).get(q);
-                        }
 
-                        setCellValue(cell, validAns);
+            if (export.query != null) {
+                Query query = Query.of(export.query).cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE);
+                try (Stream<SurveyResponse> responses = mongoTemplate.stream(query, SurveyResponse.class)) {
+                    Iterator<SurveyResponse> it = responses.iterator();
+                    while (it.hasNext()) {
+                        SurveyResponse response = it.next();
+                        if (rowIdx >= MAX_SHEET_ROWS) {
+                            sheet = createExportSheet(workbook, "Responses (" + ++sheetCount + ")", questions);
+                            rowIdx = 1;
+                        }
+                        Row row = sheet.createRow(rowIdx++);
+                        int cellIdx = 0;
+
+                        // Metadata
+                        row.createCell(cellIdx++).setCellValue(response.getId());
+                        row.createCell(cellIdx++).setCellValue(
+                                response.getSubmittedAt() != null ? response.getSubmittedAt().toString() : "");
+
+                        // Answers
+                        Map<String, Object> answers = response.getAnswers();
+                        if (answers != null) {
+                            columns.fill(answers, values);
+                            for (Object value : values) {
+                                setCellValue(row.createCell(cellIdx++), value);
+                            }
+                        }
                     }
                 }
             }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
+            out.flush();
+        } finally {
+            workbook.close();
+            workbook.dispose(); // Delete the temp files
         }
     }
 
-    // Helper methods for Security Context (Adding these to ExcelService)
-    public com.form.forms.model.Role getCurrentUserRole() {
-        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder
-                .getContext().getAuthentication();
-        if (auth != null && auth.getAuthorities() != null) {
-            String roleName = auth.getAuthorities().stream()
-                    .findFirst()
-                    .map(a -> a.getAuthority().replace("ROLE_", ""))
-                    .orElse(null);
-            if (roleName != null) {
-                try {
-                    return com.form.forms.model.Role.valueOf(roleName);
-                } catch (IllegalArgumentException e) {
-                    return null;
-                }
-            }
-        }
-        return null;
-    }
+    private Sheet createExportSheet(Workbook workbook, String name, List<CompiledSurvey.Question> questions) {
+        Sheet sheet = workbook.createSheet(name);
 
-    public String getCurrentUserId() {
-        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder
-                .getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            return userRepository.findByUsername(auth.getName())
-                    .map(com.form.forms.model.User::getId)
-                    .orElse(null);
+        // Headers from Survey Definition
+        Row headerRow = sheet.createRow(0);
+        int colIdx = 0;
+        headerRow.createCell(colIdx++).setCellValue("Response ID");
+        headerRow.createCell(colIdx++).setCellValue("Submitted At");
+        for (CompiledSurvey.Question q : questions) {
+            headerRow.createCell(colIdx++).setCellValue(q.getName());
         }
-        return null;
+        return sheet;
     }
 
     private void setCellValue(Cell cell, Object value) {
@@ -169,211 +204,364 @@ public class ExcelService {
             cell.setCellValue(((Number) value).doubleValue());
         } else if (value instanceof Boolean) {
             cell.setCellValue((Boolean) value);
-        } else if (value instanceof List) {
-            // Provide comma separated string for arrays
-            cell.setCellValue(String.join(", ", ((List<?>) value).stream().map(Object::toString).toList()));
         } else {
-            cell.setCellValue(value.toString());
-        }
-    }
-
-    private List<String> getQuestionNames(Survey survey) {
-        List<String> names = new ArrayList<>();
-        Map<String, Object> json = survey.getSurveyJson();
-        if (json == null || !json.containsKey("pages"))
-            return names;
-
-        List<Map<String, Object>> pages = (List<Map<String, Object>>) json.get("pages");
-        for (Map<String, Object> page : pages) {
-            List<Map<String, Object>> elements = (List<Map<String, Object>>) page.get("elements");
-            if (elements != null) {
-                for (Map<String, Object> el : elements) {
-                    names.add((String) el.get("name"));
-                }
-            }
+            cell.setCellValue(AnswerColumns.text(value));
         }
-        return names;
     }
 
     // ==================================================================================
     // IMPORT
     // ==================================================================================
     public ImportSummary importResponses(String surveyId, MultipartFile file) throws IOException {
-        Survey survey = surveyRepository.findById(surveyId)
-                .orElseThrow(() -> new RuntimeException("Survey not found"));
+        CompiledSurvey survey = surveyCache.get(surveyId);
 
         String organizationId = OrganizationContext.getOrganizationId();
         if (organizationId != null && !survey.getOrganizationId().equals(organizationId)) {
             throw new RuntimeException("Access Denied");
         }
 
+        // OPCPackage reads a file through random access, an InputStream would be buffered whole
+        File upload = Files.createTempFile("survey-import-", ".xlsx").toFile();
+        try {
+            file.transferTo(upload);
+            return importFromFile(survey, organizationId, upload);
+        } finally {
+            if (!upload.delete()) {
+                upload.deleteOnExit();
+            }
+        }
+    }
+
+    private ImportSummary importFromFile(CompiledSurvey survey, String organizationId, File upload) {
         ImportSummary summary = new ImportSummary();
-        List<SurveyResponse> responsesToSave = new ArrayList<>();
+        RowImporter importer = new RowImporter(survey, organizationId, summary, 0, null);
+        try {
+            parse(importer, upload);
+        } catch (Exception e) {
+            logger.warn("Import into survey {} stopped by an error", survey.getId(), e);
+            summary.addError("Critical Error processing file: " + e.getMessage());
+            // Rows parsed before the failure are kept, like the batches already written
+            importer.flush();
+        }
+        return summary;
+    }
+
+    /**
+     * Imports a spreadsheet on behalf of a background job. Counters are added to
+     * the given summary, the first skipRows data rows are passed over (they were
+     * committed by an earlier attempt) and the checkpoint is called after every
+     * written batch. A database failure (other than a duplicate) is thrown
+     * rather than recorded, so the checkpoint stays at the last batch that was
+     * fully written and the job can resume from there.
+     */
+    public ImportSummary importFile(CompiledSurvey survey, String organizationId, File upload,
+            ImportSummary summary, int skipRows, ImportCheckpoint checkpoint) throws Exception {
+        parse(new RowImporter(survey, organizationId, summary, skipRows, checkpoint), upload);
+        return summary;
+    }
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rows = sheet.iterator();
+    /**
+     * Called after each batch is written. rowsProcessed counts data rows whose
+     * outcome (saved, duplicate, empty or failed) is reflected in the summary.
+     */
+    @FunctionalInterface
+    public interface ImportCheckpoint {
+        void committed(int rowsProcessed, ImportSummary summary);
+    }
 
-            // 1. Parse Headers
-            if (!rows.hasNext()) {
+    /**
+     * Streams the first sheet through POI's SAX event model: rows are mapped
+     * and coerced one at a time and written in batches of importBatchSize, so
+     * heap use does not depend on the size of the file.
+     */
+    private void parse(RowImporter importer, File upload) throws Exception {
+        ImportSummary summary = importer.summary;
+        try (OPCPackage pkg = OPCPackage.open(upload, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
                 summary.addError("File is empty");
-                return summary;
+                return;
             }
-            Row headerRow = rows.next();
-            Map<Integer, QuestionMeta> columnMapping = new HashMap<>();
-
-            // Build map of Title/Name -> Meta for matching
-            Map<String, QuestionMeta> schemaMap = buildQuestionMetaMap(survey);
-
-            for (Cell cell : headerRow) {
-                String header = cell.getStringCellValue().trim();
-                // Check direct match or lowercase match
-                QuestionMeta matchedMeta = schemaMap.get(header.toLowerCase());
-                if (matchedMeta != null) {
-                    columnMapping.put(cell.getColumnIndex(), matchedMeta);
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, importer,
+                        new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            } catch (StopImport stop) {
+                // Header row had no usable columns; the error is already recorded
+                return;
+            } catch (SAXException e) {
+                if (e.getCause() instanceof StopImport) {
+                    return;
                 }
+                throw e;
             }
 
-            if (columnMapping.isEmpty()) {
-                String error = "No matching columns found. Please ensure headers match question names or titles.";
-                System.out.println("Import Error: " + error);
-                summary.addError(error);
-                return summary;
+            if (!importer.headerSeen) {
+                summary.addError("File is empty");
+                return;
             }
+            importer.flush();
+        }
+    }
 
-            System.out.println("Found matching columns: " + columnMapping.size());
+    /**
+     * Receives parsed rows from XSSFSheetXMLHandler. Row 0 is the header;
+     * every later row becomes at most one SurveyResponse.
+     */
+    private class RowImporter implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final CompiledSurvey survey;
+        private final String organizationId;
+        private final ImportSummary summary;
+        private final int skipRows;
+        private final ImportCheckpoint checkpoint;
+        // Jobs: a database failure aborts the import instead of being counted,
+        // so the checkpoint never moves past rows that were not written
+        private final boolean failFast;
+        private final List<SurveyResponse> batch = new ArrayList<>(importBatchSize);
+
+        private CompiledSurvey.Question[] columns = new CompiledSurvey.Question[0];
+        private Map<String, Object> answers;
+        private boolean headerSeen;
+        private int rowNum = 1;
+        private int lastColumn;
+
+        RowImporter(CompiledSurvey survey, String organizationId, ImportSummary summary, int skipRows,
+                ImportCheckpoint checkpoint) {
+            this.survey = survey;
+            this.organizationId = organizationId;
+            this.summary = summary;
+            this.skipRows = skipRows;
+            this.checkpoint = checkpoint;
+            this.failFast = checkpoint != null;
+        }
 
-            // 2. Iterate Data Rows
-            int rowNum = 1;
+        @Override
+        public void startRow(int rowIndex) {
+            lastColumn = -1;
+            if (headerSeen && rowNum - 1 >= skipRows) {
+                answers = new HashMap<>();
+            }
+        }
 
-            // Fetch existing hashes to prevent duplicates
-            Set<Integer> existingHashes = responseRepository.findBySurveyId(surveyId).stream()
-                    .map(SurveyResponse::getResponseHash)
-                    .filter(Objects::nonNull)
-                    .collect(java.util.stream.Collectors.toSet());
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : lastColumn + 1;
+            lastColumn = column;
+
+            if (!headerSeen) {
+                // 1. Parse Headers: match question name or title, case-insensitive
+                CompiledSurvey.Question matched = formattedValue != null ? survey.findByLabel(formattedValue) : null;
+                if (matched != null) {
+                    if (column >= columns.length) {
+                        columns = Arrays.copyOf(columns, column + 1);
+                    }
+                    columns[column] = matched;
+                }
+                return;
+            }
 
-            System.out.println("DEBUG: Found " + existingHashes.size() + " existing response hashes.");
+            if (answers == null || column >= columns.length || columns[column] == null || formattedValue == null) {
+                return;
+            }
+            CompiledSurvey.Question meta = columns[column];
+            Object value = coerceValue(formattedValue.trim(), meta.getType(), meta.getInputType());
+            if (value != null) {
+                answers.put(meta.getName(), AnswerNormalizer.normalize(meta, value));
+            }
+        }
 
-            while (rows.hasNext()) {
-                rowNum++;
-                Row currentRow = rows.next();
-                summary.setTotalRows(rowNum - 1); // Track total rows found so far
+        @Override
+        public void endRow(int rowIndex) {
+            if (!headerSeen) {
+                headerSeen = true;
+                long matched = Arrays.stream(columns).filter(Objects::nonNull).count();
+                if (matched == 0) {
+                    String error = "No matching columns found. Please ensure headers match question names or titles.";
+                    logger.debug("Import into survey {}: {}", survey.getId(), error);
+                    summary.addError(error);
+                    throw new StopImport();
+                }
+                logger.debug("Import into survey {}: {} matching columns", survey.getId(), matched);
+                return;
+            }
 
-                try {
-                    Map<String, Object> answers = new HashMap<>();
-                    boolean hasData = false;
+            // 2. Data Rows
+            rowNum++;
+            if (rowNum - 1 <= skipRows) {
+                return; // Committed by an earlier attempt of the same job
+            }
+            summary.setTotalRows(rowNum - 1); // Track total rows found so far
 
-                    for (Map.Entry<Integer, QuestionMeta> entry : columnMapping.entrySet()) {
-                        Cell cell = currentRow.getCell(entry.getKey());
-                        Object value = getCellValue(cell);
+            try {
+                if (answers.isEmpty()) {
+                    logger.debug("Row {} skipped: no data in mapped columns", rowNum);
+                    summary.incrementEmpty(); // Track empty row
+                    return;
+                }
 
-                        // Coerce Value
-                        QuestionMeta meta = entry.getValue();
-                        value = coerceValue(value, meta.type, meta.inputType);
+                // Deduplication is resolved per batch against the fingerprint index
+                String fingerprint = ResponseFingerprint.of(answers);
+
+                // Validation is skipped for Excel Import: matching headers are
+                // accepted regardless of question type.
+                SurveyResponse response = new SurveyResponse();
+                response.setSurveyId(survey.getId());
+                response.setOrganizationId(organizationId); // Set Org ID
+                response.setSurveyVersion(survey.getVersion());
+                response.setStatus(ResponseStatus.COMPLETED);
+                response.setAnswers(answers);
+                response.setSubmittedAt(new Date());
+                response.setFingerprint(fingerprint);
+                response.setAnswersNormalized(true);
+
+                Map<String, Object> meta = new HashMap<>();
+                meta.put("importSource", "Excel Upload");
+                meta.put("importedBy", organizationId);
+                response.setMetadata(meta);
+
+                batch.add(response);
+            } catch (Exception e) {
+                logger.debug("Row {} failed: {}", rowNum, e.getMessage());
+                summary.incrementFailed();
+                addError(summary, "Row " + rowNum + ": " + e.getMessage());
+            } finally {
+                answers = null;
+            }
 
-                        if (value != null) {
-                            answers.put(meta.name, value);
-                            hasData = true;
-                        }
-                    }
+            // Jobs also checkpoint on row count, so progress moves through runs of duplicates
+            if (batch.size() >= importBatchSize
+                    || (checkpoint != null && (rowNum - 1 - skipRows) % importBatchSize == 0)) {
+                flush();
+            }
+        }
 
-                    if (hasData) {
-                        // Deduplication Logic
-                        int responseHash = answers.hashCode();
-                        if (existingHashes.contains(responseHash)) {
-                            System.out.println("Skipping duplicate row " + rowNum);
-                            summary.incrementDuplicate(); // Track duplicate
-                            continue;
-                        }
+        /**
+         * Success is counted only after the DB save.
+         */
+        void flush() {
+            if (!batch.isEmpty()) {
+                saveBatch();
+            }
+            if (checkpoint != null && rowNum - 1 > skipRows) {
+                checkpoint.committed(rowNum - 1, summary);
+            }
+        }
+
+        /**
+         * Drops rows whose fingerprint is already stored (one indexed $in probe)
+         * or repeated within the batch, then inserts the rest unordered. A
+         * duplicate-key error means a concurrent import stored the same answers
+         * first and is counted as a duplicate. Any other failure is counted per
+         * row, or thrown in fail-fast mode once the written rows are logged.
+         */
+        private void saveBatch() {
+            try {
+                Set<String> fingerprints = new HashSet<>();
+                for (SurveyResponse response : batch) {
+                    fingerprints.add(response.getFingerprint());
+                }
+                Set<String> existing = new HashSet<>();
+                for (SurveyResponse stored : responseRepository.findFingerprints(survey.getId(), fingerprints)) {
+                    existing.add(stored.getFingerprint());
+                }
 
-                        // Validate before creating response
-                        // SKIP VALIDATION for Excel Import as per requirement:
-                        // "search if header name is matching it should not see the type (not
-                        // restricted)"
-                        /*
-                         * List<String> validationErrors = schemaValidator.validate(survey, answers);
-                         * if (!validationErrors.isEmpty()) {
-                         * throw new RuntimeException("Validation failed: " + String.join(", ",
-                         * validationErrors));
-                         * }
-                         */
-
-                        SurveyResponse response = new SurveyResponse();
-                        response.setSurveyId(surveyId);
-                        response.setOrganizationId(organizationId); // Set Org ID
-                        response.setSurveyVersion(survey.getVersion());
-                        response.setStatus(ResponseStatus.COMPLETED);
-                        response.setAnswers(answers);
-                        response.setSubmittedAt(new Date());
-                        response.setResponseHash(responseHash); // Save hash for future checks
-
-                        Map<String, Object> meta = new HashMap<>();
-                        meta.put("importSource", "Excel Upload");
-                        meta.put("importedBy", organizationId);
-                        response.setMetadata(meta);
-
-                        responsesToSave.add(response);
-                        // Do NOT increment success here. Success is counted only after DB save.
-                        existingHashes.add(responseHash); // Add to local set to catch duplicates within the file itself
+                List<SurveyResponse> toInsert = new ArrayList<>(batch.size());
+                for (SurveyResponse response : batch) {
+                    if (existing.add(response.getFingerprint())) {
+                        // Assigned up front so inserted documents can be told apart from rejected ones
+                        response.setId(new ObjectId().toHexString());
+                        toInsert.add(response);
                     } else {
-                        System.out.println("Row " + rowNum + " skipped: No data found in mapped columns.");
-                        summary.incrementEmpty(); // Track empty row
+                        summary.incrementDuplicate(); // Track duplicate
                     }
-                } catch (Exception e) {
-                    System.err.println("Row " + rowNum + " failed: " + e.getMessage());
-                    summary.incrementFailed();
-                    summary.addError("Row " + rowNum + ": " + e.getMessage());
                 }
-            }
-        } catch (Exception e) {
-            e.printStackTrace(); // DEBUG: Print full trace to console
-            summary.addError("Critical Error processing file: " + e.getMessage());
-            return summary;
-        }
+                if (toInsert.isEmpty()) {
+                    return;
+                }
 
-        if (!responsesToSave.isEmpty()) {
-            try {
-                // Save in batches to avoid memory spikes
-                int batchSize = 500;
-                for (int i = 0; i < responsesToSave.size(); i += batchSize) {
-                    int end = Math.min(i + batchSize, responsesToSave.size());
-                    List<SurveyResponse> batch = responsesToSave.subList(i, end);
-                    try {
-                        List<SurveyResponse> savedBatch = responseRepository.saveAll(batch);
-                        summary.addSuccess(savedBatch.size());
-
-                        // Update Analytics for Imported Data
-                        for (SurveyResponse saved : savedBatch) {
-                            analyticsService.logResponse(saved);
+                Set<Integer> rejected = new HashSet<>();
+                String writeError = null;
+                try {
+                    mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SurveyResponse.class)
+                            .insert(toInsert)
+                            .execute();
+                } catch (BulkOperationException e) {
+                    for (BulkWriteError error : e.getErrors()) {
+                        rejected.add(error.getIndex());
+                        if (error.getCode() == DUPLICATE_KEY) {
+                            summary.incrementDuplicate();
+                        } else if (failFast) {
+                            writeError = error.getMessage();
+                        } else {
+                            summary.incrementFailed();
+                            addError(summary, "Database Error saving row: " + error.getMessage());
                         }
+                    }
+                }
 
-                    } catch (Exception e) {
-                        // If a batch fails, mark them as failed
-                        System.err.println("Error saving batch: " + e.getMessage());
-                        summary.addFailed(batch.size());
-                        summary.addError("Database Error saving batch of " + batch.size() + " rows: " + e.getMessage());
+                // Update Analytics for Imported Data
+                for (int i = 0; i < toInsert.size(); i++) {
+                    if (!rejected.contains(i)) {
+                        summary.incrementSuccess();
+                        analyticsService.logResponse(toInsert.get(i));
                     }
                 }
+                if (writeError != null) {
+                    throw new BatchFailedException("Database Error saving row: " + writeError, null);
+                }
+            } catch (BatchFailedException e) {
+                throw e;
             } catch (Exception e) {
-                // Should be caught by inner loop, but just in case
-                System.err.println("Error in batch processing: " + e.getMessage());
-                e.printStackTrace();
-                summary.addError("Critical Database Error: " + e.getMessage());
+                if (failFast) {
+                    throw new BatchFailedException("Database Error saving batch: " + e.getMessage(), e);
+                }
+                // If a batch fails, mark them as failed
+                logger.debug("Failed to save a batch of {} rows: {}", batch.size(), e.getMessage());
+                summary.addFailed(batch.size());
+                addError(summary, "Database Error saving batch of " + batch.size() + " rows: " + e.getMessage());
+            } finally {
+                batch.clear();
             }
         }
+    }
 
-        return summary;
+    /**
+     * Keeps the error list bounded for very large files; counts stay exact.
+     */
+    private static void addError(ImportSummary summary, String error) {
+        int reported = summary.getErrors().size();
+        if (reported < MAX_REPORTED_ERRORS) {
+            summary.addError(error);
+        } else if (reported == MAX_REPORTED_ERRORS) {
+            summary.addError("Further errors omitted");
+        }
     }
 
-    private Object getCellValue(Cell cell) {
-        if (cell == null)
-            return null;
-        DataFormatter formatter = new DataFormatter();
-        String value = formatter.formatCellValue(cell);
-        return (value == null || value.trim().isEmpty()) ? null : value.trim();
+    /**
+     * Aborts the SAX parse once the header turns out to be unusable.
+     */
+    private static class StopImport extends RuntimeException {
+        StopImport() {
+            super(null, null, false, false);
+        }
     }
 
-    private Object coerceValue(Object value, String type, String inputType) {
+    /**
+     * Aborts a job import when a batch could not be written.
+     */
+    private static class BatchFailedException extends RuntimeException {
+        BatchFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    static Object coerceValue(Object value, String type, String inputType) {
         if (value == null)
             return null;
         String strVal = value.toString().trim();
@@ -402,46 +590,4 @@ public class ExcelService {
 
         return strVal;
     }
-
-    private Map<String, QuestionMeta> buildQuestionMetaMap(Survey survey) {
-        Map<String, QuestionMeta> map = new HashMap<>();
-        Map<String, Object> json = survey.getSurveyJson();
-        if (json == null || !json.containsKey("pages"))
-            return map;
-
-        List<Map<String, Object>> pages = (List<Map<String, Object>>) json.get("pages");
-        for (Map<String, Object> page : pages) {
-            List<Map<String, Object>> elements = (List<Map<String, Object>>) page.get("elements");
-            if (elements != null) {
-                for (Map<String, Object> el : elements) {
-                    String name = (String) el.get("name");
-                    String title = (String) el.get("title");
-                    String type = (String) el.get("type");
-                    String inputType = (String) el.get("inputType");
-
-                    QuestionMeta meta = new QuestionMeta(name, type, inputType);
-
-                    // Map by name (lowercase)
-                    map.put(name.toLowerCase(), meta);
-
-                    // Map by title (lowercase) if present
-                    if (title != null)
-                        map.put(title.toLowerCase(), meta);
-                }
-            }
-        }
-        return map;
-    }
-
-    private static class QuestionMeta {
-        String name;
-        String type;
-        String inputType;
-
-        public QuestionMeta(String name, String type, String inputType) {
-            this.name = name;
-            this.type = type;
-            this.inputType = inputType;
-        }
-    }
 }
@@ -0,0 +1,351 @@
+package com.form.forms.service;
+
+import com.form.forms.dto.ImportSummary;
+import com.form.forms.exception.BadRequestException;
+import com.form.forms.exception.ResourceNotFoundException;
+import com.form.forms.model.ImportJob;
+import com.form.forms.model.ImportJobStatus;
+import com.form.forms.repository.ImportJobRepository;
+import com.form.forms.security.CurrentUser;
+import com.form.forms.tenant.OrganizationContext;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background spreadsheet imports.
+ *
+ * An upload is stored in GridFS and answered with a QUEUED job right away. A
+ * fixed pool of workers runs the jobs through ExcelService's streaming
+ * importer, at most maxConcurrentPerOrg at a time for any one organization;
+ * organizations with waiting jobs are served round-robin, so one tenant's
+ * backlog cannot hold every worker.
+ *
+ * Progress is checkpointed onto the job after every batch. A FAILED job keeps
+ * its upload and can be resumed; it skips the rows already committed. Jobs
+ * whose worker stopped heartbeating (pod restart) are marked FAILED by the
+ * sweep so they can be resumed as well.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final ImportJobRepository jobRepository;
+    private final MongoTemplate mongoTemplate;
+    private final GridFsTemplate gridFs;
+    private final ExcelService excelService;
+    private final SurveyDefinitionCache surveyCache;
+    private final int workers;
+    private final int maxConcurrentPerOrg;
+    private final long staleAfterMs;
+    private final ThreadPoolExecutor executor;
+
+    // Scheduling state, guarded by this
+    private final Map<String, Deque<String>> pendingByOrg = new LinkedHashMap<>();
+    private final Map<String, Integer> runningByOrg = new HashMap<>();
+    private final Set<String> queuedOrRunning = new HashSet<>();
+    private int running;
+
+    public ImportJobService(ImportJobRepository jobRepository, MongoTemplate mongoTemplate,
+            ExcelService excelService, SurveyDefinitionCache surveyCache,
+            @Value("${app.import.workers:2}") int workers,
+            @Value("${app.import.maxConcurrentPerOrg:1}") int maxConcurrentPerOrg,
+            @Value("${app.import.staleAfterMs:600000}") long staleAfterMs) {
+        this.jobRepository = jobRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.gridFs = new GridFsTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter(),
+                "import_uploads");
+        this.excelService = excelService;
+        this.surveyCache = surveyCache;
+        this.workers = Math.max(1, workers);
+        this.maxConcurrentPerOrg = Math.max(1, maxConcurrentPerOrg);
+        this.staleAfterMs = staleAfterMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "import-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public ImportJob submit(String surveyId, MultipartFile file) throws IOException {
+        CompiledSurvey survey = surveyCache.get(surveyId);
+        checkOrganization(survey.getOrganizationId());
+
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+
+        ObjectId fileId;
+        try (InputStream in = file.getInputStream()) {
+            fileId = gridFs.store(in, file.getOriginalFilename(), file.getContentType());
+        }
+
+        ImportJob job = new ImportJob();
+        job.setSurveyId(surveyId);
+        job.setOrganizationId(survey.getOrganizationId());
+        job.setCreatedBy(CurrentUser.getUserId());
+        job.setFileName(file.getOriginalFilename());
+        job.setFileId(fileId.toHexString());
+        job.setUpdatedAt(new Date());
+        ImportJob saved = jobRepository.save(job);
+
+        enqueue(saved);
+        return saved;
+    }
+
+    public ImportJob getJob(String surveyId, String jobId) {
+        ImportJob job = jobRepository.findById(jobId)
+                .filter(j -> j.getSurveyId().equals(surveyId))
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+        checkOrganization(job.getOrganizationId());
+        return job;
+    }
+
+    public List<ImportJob> getJobs(String surveyId) {
+        checkOrganization(surveyCache.get(surveyId).getOrganizationId());
+        return jobRepository.findTop20BySurveyIdOrderByCreatedAtDesc(surveyId);
+    }
+
+    /**
+     * Requeues a FAILED job; it continues after its last committed batch.
+     */
+    public ImportJob resume(String surveyId, String jobId) {
+        ImportJob job = getJob(surveyId, jobId);
+        if (job.getStatus() != ImportJobStatus.FAILED) {
+            throw new BadRequestException("Only failed import jobs can be resumed");
+        }
+
+        ImportJob requeued = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(jobId).and("status").is(ImportJobStatus.FAILED)),
+                new Update().set("status", ImportJobStatus.QUEUED).set("updatedAt", new Date()).unset("message"),
+                FindAndModifyOptions.options().returnNew(true), ImportJob.class);
+        if (requeued == null) {
+            throw new BadRequestException("Import job is already being resumed");
+        }
+
+        enqueue(requeued);
+        return requeued;
+    }
+
+    private void checkOrganization(String jobOrganizationId) {
+        String organizationId = OrganizationContext.getOrganizationId();
+        if (organizationId != null && !organizationId.equals(jobOrganizationId)) {
+            throw new RuntimeException("Access Denied");
+        }
+    }
+
+    // ==================================================================================
+    // SCHEDULING
+    // ==================================================================================
+
+    private synchronized void enqueue(ImportJob job) {
+        if (!queuedOrRunning.add(job.getId())) {
+            return;
+        }
+        pendingByOrg.computeIfAbsent(orgKey(job.getOrganizationId()), k -> new ArrayDeque<>()).add(job.getId());
+        dispatch();
+    }
+
+    /**
+     * Hands jobs to free workers, one organization at a time in round-robin
+     * order, skipping organizations already at their concurrency cap.
+     */
+    private synchronized void dispatch() {
+        while (running < workers) {
+            String org = null;
+            for (Map.Entry<String, Deque<String>> entry : pendingByOrg.entrySet()) {
+                if (runningByOrg.getOrDefault(entry.getKey(), 0) < maxConcurrentPerOrg) {
+                    org = entry.getKey();
+                    break;
+                }
+            }
+            if (org == null) {
+                return;
+            }
+
+            // Move the organization to the back of the line
+            Deque<String> pending = pendingByOrg.remove(org);
+            String jobId = pending.poll();
+            if (!pending.isEmpty()) {
+                pendingByOrg.put(org, pending);
+            }
+
+            running++;
+            runningByOrg.merge(org, 1, Integer::sum);
+            String jobOrg = org;
+            executor.execute(() -> run(jobOrg, jobId));
+        }
+    }
+
+    private void run(String org, String jobId) {
+        try {
+            process(jobId);
+        } catch (Exception e) {
+            logger.error("Import job {} crashed", jobId, e);
+        } finally {
+            synchronized (this) {
+                running--;
+                runningByOrg.computeIfPresent(org, (k, count) -> count > 1 ? count - 1 : null);
+                queuedOrRunning.remove(jobId);
+            }
+            dispatch();
+        }
+    }
+
+    private static String orgKey(String organizationId) {
+        return organizationId != null ? organizationId : "";
+    }
+
+    // ==================================================================================
+    // EXECUTION
+    // ==================================================================================
+
+    private void process(String jobId) {
+        Date now = new Date();
+        ImportJob job = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(jobId).and("status").is(ImportJobStatus.QUEUED)),
+                new Update().set("status", ImportJobStatus.RUNNING).set("startedAt", now).set("updatedAt", now)
+                        .inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), ImportJob.class);
+        if (job == null) {
+            return; // Claimed by another instance or no longer queued
+        }
+
+        File upload = null;
+        try {
+            GridFSFile stored = gridFs.findOne(Query.query(Criteria.where("_id").is(new ObjectId(job.getFileId()))));
+            if (stored == null) {
+                fail(jobId, "Uploaded file is no longer available");
+                return;
+            }
+            upload = Files.createTempFile("survey-import-job-", ".xlsx").toFile();
+            try (InputStream in = gridFs.getResource(stored).getInputStream()) {
+                Files.copy(in, upload.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            CompiledSurvey survey = surveyCache.get(job.getSurveyId());
+            ImportSummary summary = job.getSummary() != null ? job.getSummary() : new ImportSummary();
+            excelService.importFile(survey, job.getOrganizationId(), upload, summary, job.getRowsCommitted(),
+                    (rowsProcessed, progress) -> checkpoint(jobId, rowsProcessed, progress));
+
+            Date finished = new Date();
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)),
+                    new Update().set("status", ImportJobStatus.COMPLETED)
+                            .set("summary", summary)
+                            .set("finishedAt", finished)
+                            .set("updatedAt", finished),
+                    ImportJob.class);
+            gridFs.delete(Query.query(Criteria.where("_id").is(new ObjectId(job.getFileId()))));
+            logger.info("Import job {} completed: {} saved, {} duplicates, {} failed", jobId,
+                    summary.getSuccessCount(), summary.getDuplicateCount(), summary.getFailedCount());
+        } catch (Exception e) {
+            // The summary stays at the last checkpoint; resume re-reads the rest
+            logger.warn("Import job {} failed", jobId, e);
+            fail(jobId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            if (upload != null && !upload.delete()) {
+                upload.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Persists progress; doubles as the worker heartbeat checked by the sweep.
+     */
+    private void checkpoint(String jobId, int rowsProcessed, ImportSummary summary) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(jobId).and("status").is(ImportJobStatus.RUNNING)),
+                new Update().set("summary", summary)
+                        .set("rowsCommitted", rowsProcessed)
+                        .set("updatedAt", new Date()),
+                ImportJob.class);
+    }
+
+    private void fail(String jobId, String message) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)),
+                new Update().set("status", ImportJobStatus.FAILED)
+                        .set("message", message)
+                        .set("updatedAt", new Date()),
+                ImportJob.class);
+    }
+
+    // ==================================================================================
+    // RECOVERY
+    // ==================================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover();
+    }
+
+    /**
+     * Fails RUNNING jobs that stopped checkpointing (their worker is gone) and
+     * picks up QUEUED jobs that no live queue holds, e.g. after a restart.
+     */
+    @Scheduled(fixedDelayString = "${app.import.sweepIntervalMs:60000}", initialDelayString = "${app.import.sweepIntervalMs:60000}")
+    public void recover() {
+        try {
+            Date staleBefore = new Date(System.currentTimeMillis() - staleAfterMs);
+            Set<String> local;
+            synchronized (this) {
+                local = new HashSet<>(queuedOrRunning);
+            }
+
+            Query stale = Query.query(Criteria.where("status").is(ImportJobStatus.RUNNING)
+                    .and("updatedAt").lt(staleBefore));
+            for (ImportJob job : mongoTemplate.find(stale, ImportJob.class)) {
+                if (!local.contains(job.getId())) {
+                    fail(job.getId(), "Import was interrupted; resume to continue");
+                }
+            }
+
+            for (ImportJob job : jobRepository.findByStatusOrderByCreatedAtAsc(ImportJobStatus.QUEUED)) {
+                enqueue(job);
+            }
+        } catch (Exception e) {
+            logger.error("Import job recovery failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,145 @@
+package com.form.forms.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A one-off migration that runs on a background thread after startup, on one
+ * instance at a time. The instance holding the lease in migration_state
+ * (claimed with findAndModify, like import jobs) works in _id order and
+ * stores its position after every batch (checkpoint), so another instance
+ * takes over where it stopped once the lease expires. Rejected documents are
+ * recorded in the state document and not retried.
+ */
+public abstract class LeasedMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedMigration.class);
+    private static final String STATE_COLLECTION = "migration_state";
+    private static final int MAX_RECORDED_REJECTIONS = 1000;
+
+    protected final MongoTemplate mongoTemplate;
+    protected final long leaseMs;
+    private final String stateId;
+    private final boolean enabled;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    protected LeasedMigration(MongoTemplate mongoTemplate, String stateId, boolean enabled, long leaseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.stateId = stateId;
+        this.enabled = enabled;
+        this.leaseMs = leaseMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, stateId + "-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Continues the migration after lastId (null on the first run). Returns
+     * once it called markComplete(), lost the lease or was stopped.
+     */
+    protected abstract void migrate(String lastId);
+
+    protected boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Document state = claim();
+                if (state == null) {
+                    Document current = readState();
+                    if (current != null && Boolean.TRUE.equals(current.getBoolean("complete"))) {
+                        return;
+                    }
+                    // Another instance holds the lease; take over if it stops renewing
+                    Thread.sleep(leaseMs);
+                    continue;
+                }
+                migrate(state.getString("lastId"));
+                return;
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.error("Migration {} failed; retrying after the lease period", stateId, e);
+                try {
+                    Thread.sleep(leaseMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The state document if this instance now holds the lease, null otherwise.
+     */
+    private Document claim() {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(stateId)),
+                new Update().setOnInsert("complete", false), STATE_COLLECTION);
+        Date now = new Date();
+        Query claimable = new Query(Criteria.where("_id").is(stateId).and("complete").is(false)
+                .orOperator(Criteria.where("leaseUntil").exists(false),
+                        Criteria.where("leaseUntil").lt(now),
+                        Criteria.where("owner").is(owner)));
+        return mongoTemplate.findAndModify(claimable,
+                new Update().set("owner", owner).set("leaseUntil", new Date(now.getTime() + leaseMs)),
+                FindAndModifyOptions.options().returnNew(true), Document.class, STATE_COLLECTION);
+    }
+
+    protected Document readState() {
+        return mongoTemplate.findById(stateId, Document.class, STATE_COLLECTION);
+    }
+
+    /**
+     * Stores the position, records rejected documents and renews the lease;
+     * false when the lease was taken over.
+     */
+    protected boolean checkpoint(String lastId, List<String> rejected) {
+        Update update = new Update().set("lastId", lastId)
+                .set("leaseUntil", new Date(System.currentTimeMillis() + leaseMs));
+        if (!rejected.isEmpty()) {
+            update.inc("rejectedCount", rejected.size());
+            update.push("rejected").slice(-MAX_RECORDED_REJECTIONS).each(rejected.toArray());
+        }
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(stateId).and("owner").is(owner)),
+                update, STATE_COLLECTION).getMatchedCount() > 0;
+    }
+
+    protected void markComplete() {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(stateId).and("owner").is(owner)),
+                new Update().set("complete", true).unset("leaseUntil"), STATE_COLLECTION);
+    }
+}
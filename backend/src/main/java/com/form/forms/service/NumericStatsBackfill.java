@@ -0,0 +1,147 @@
+package com.form.forms.service;
+
+import com.form.forms.model.NumericSummary;
+import com.form.forms.model.ResponseStatus;
+import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.DayKey;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Fills numericStats for the days before the aggregator started keeping them.
+ *
+ * The first start with numeric rollups records its day ("from") in
+ * stats_state. Once that day is over, every earlier day up to and including
+ * it is recomputed from the raw responses and written with $set, which makes
+ * the backfill idempotent and overrides the partial counts of the first day.
+ * Until it has completed, metrics keep using the raw aggregation.
+ */
+@Component
+public class NumericStatsBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumericStatsBackfill.class);
+    private static final String STATE_COLLECTION = "stats_state";
+    private static final String STATE_ID = "numericStats";
+
+    private final MongoTemplate mongoTemplate;
+    private final SurveyDefinitionCache surveyCache;
+    private final StatsRollupService rollupService;
+
+    private volatile boolean complete;
+
+    public NumericStatsBackfill(MongoTemplate mongoTemplate, SurveyDefinitionCache surveyCache,
+            StatsRollupService rollupService) {
+        this.mongoTemplate = mongoTemplate;
+        this.surveyCache = surveyCache;
+        this.rollupService = rollupService;
+    }
+
+    /**
+     * Called by the aggregator before it folds its first response.
+     */
+    public void recordStart() {
+        int today = DayKey.of(LocalDate.now(DayKey.zone()));
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(STATE_ID)),
+                new Update().setOnInsert("from", today).setOnInsert("complete", false), STATE_COLLECTION);
+        complete = Boolean.TRUE.equals(loadState().getBoolean("complete"));
+    }
+
+    /**
+     * True once every day has numericStats, so metrics can be read from the rollups.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.numericBackfillIntervalMs:3600000}", initialDelayString = "${app.analytics.sealInitialDelayMs:60000}")
+    public void backfill() {
+        if (complete) {
+            return;
+        }
+        Document state = loadState();
+        if (Boolean.TRUE.equals(state.getBoolean("complete"))) {
+            complete = true; // Finished by another instance
+            return;
+        }
+        Integer from = state.getInteger("from");
+        if (from == null || DayKey.of(LocalDate.now(DayKey.zone())) <= from) {
+            return; // The first day is still receiving live increments
+        }
+
+        Criteria before = Criteria.where("submittedAt").lt(DayKey.startOf(from + 1))
+                .and("status").is(ResponseStatus.COMPLETED);
+        List<String> surveyIds = mongoTemplate.findDistinct(new Query(before), "surveyId", SurveyResponse.class,
+                String.class);
+        int days = 0;
+        for (String surveyId : surveyIds) {
+            CompiledSurvey survey = surveyCache.find(surveyId).orElse(null);
+            if (survey != null && survey.getQuestions().stream().anyMatch(AnswerNormalizer::isNumeric)) {
+                days += backfillSurvey(survey, from);
+            }
+        }
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(STATE_ID)),
+                new Update().set("complete", true), STATE_COLLECTION);
+        complete = true;
+        logger.info("Backfilled numeric stats for {} survey days", days);
+    }
+
+    private int backfillSurvey(CompiledSurvey survey, int from) {
+        Query query = new Query(Criteria.where("surveyId").is(survey.getId())
+                .and("submittedAt").lt(DayKey.startOf(from + 1))
+                .and("status").is(ResponseStatus.COMPLETED))
+                .cursorBatchSize(1000);
+        query.fields().include("answers", "submittedAt");
+
+        Map<Integer, Map<String, NumericSummary>> byDay = new HashMap<>();
+        try (Stream<SurveyResponse> responses = mongoTemplate.stream(query, SurveyResponse.class)) {
+            Iterator<SurveyResponse> it = responses.iterator();
+            while (it.hasNext()) {
+                SurveyResponse response = it.next();
+                if (response.getAnswers() == null || response.getSubmittedAt() == null) {
+                    continue;
+                }
+                Map<String, NumericSummary> day = byDay.computeIfAbsent(DayKey.of(response.getSubmittedAt()),
+                        k -> new HashMap<>());
+                DailyStatsAggregator.forEachNumeric(survey, response.getAnswers(),
+                        (key, value) -> day.computeIfAbsent(key, k -> new NumericSummary()).add(value));
+            }
+        }
+
+        for (Map.Entry<Integer, Map<String, NumericSummary>> day : byDay.entrySet()) {
+            Criteria sameDay = Criteria.where("surveyId").is(survey.getId()).and("day").is(day.getKey());
+            mongoTemplate.upsert(new Query(Criteria.where("surveyId").is(survey.getId())
+                    .and("day").is(day.getKey()).and("shard").exists(false)),
+                    new Update().set("numericStats", day.getValue())
+                            .setOnInsert("date", DayKey.format(day.getKey()))
+                            .setOnInsert("organizationId", survey.getOrganizationId()),
+                    SurveyDailyStats.class);
+            // The primary now holds the whole day
+            mongoTemplate.updateMulti(new Query(sameDay.and("shard").exists(true)),
+                    new Update().unset("numericStats"), SurveyDailyStats.class);
+        }
+        // Sealed months and years are rebuilt with the corrected days
+        rollupService.unseal(survey.getId());
+        return byDay.size();
+    }
+
+    private Document loadState() {
+        Document state = mongoTemplate.findById(STATE_ID, Document.class, STATE_COLLECTION);
+        return state != null ? state : new Document();
+    }
+}
@@ -9,12 +9,11 @@ import java.util.List;
 import java.util.Date;
 import java.util.Optional;
 
-import com.form.forms.model.User;
 import com.form.forms.model.Role;
-import com.form.forms.repository.UserRepository;
 import com.form.forms.model.Project;
 import com.form.forms.repository.ProjectRepository;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.form.forms.security.AuthenticatedPrincipal;
+import com.form.forms.security.CurrentUser;
 import org.springframework.security.access.AccessDeniedException;
 
 @Service
@@ -23,9 +22,6 @@ public class RFQService {
     @Autowired
     private RFQRepository rfqRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private ProjectRepository projectRepository;
 
@@ -87,13 +83,11 @@ public class RFQService {
     }
 
     private void validateNgoAccess(String requestedNgoId) {
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        // Skip check for systems/admins if needed, but for now assuming safety.
-        // Better to fetch user to check role.
-        User currentUser = userRepository.findByUsername(currentUsername)
+        // Role and id come from the verified token, no user lookup needed
+        AuthenticatedPrincipal currentUser = CurrentUser.get()
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (currentUser.getRole() == Role.NGO && !currentUser.getId().equals(requestedNgoId)) {
+        if (currentUser.getRole() == Role.NGO && !requestedNgoId.equals(currentUser.getUserId())) {
             throw new AccessDeniedException("Access Denied: You can only view your own RFQs.");
         }
     }
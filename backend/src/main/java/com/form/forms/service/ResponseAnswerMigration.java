@@ -0,0 +1,144 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseFingerprint;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One-off rewrite of responses stored before write-time normalization: each
+ * answer is converted to its question's canonical type (AnswerNormalizer) and
+ * the document is marked answersNormalized. Imported rows also get their
+ * fingerprint recomputed so deduplication keeps matching re-imports.
+ *
+ * Runs as a LeasedMigration. Responses whose update is rejected (a recomputed
+ * fingerprint that collides with an earlier copy of the same row) are
+ * recorded in the state document and not retried. Responses whose survey no
+ * longer exists are only marked.
+ *
+ * Readers that rely on the canonical types ask isComplete() first and keep
+ * matching the legacy representations until then. Rejected responses are
+ * never rewritten, so a run that rejected any leaves isComplete() false.
+ */
+@Component
+public class ResponseAnswerMigration extends LeasedMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseAnswerMigration.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final SurveyDefinitionCache surveyCache;
+
+    private volatile boolean complete;
+    private volatile long checkedAt;
+
+    public ResponseAnswerMigration(MongoTemplate mongoTemplate, SurveyDefinitionCache surveyCache,
+            @Value("${app.migrations.normalizeAnswers:true}") boolean enabled,
+            @Value("${app.migrations.leaseMs:120000}") long leaseMs) {
+        super(mongoTemplate, "normalizeAnswers", enabled, leaseMs);
+        this.surveyCache = surveyCache;
+    }
+
+    /**
+     * True once every stored response holds canonical answers. Re-reads the
+     * state document at most once per lease period, so instances that do not
+     * run the migration see another instance finish it.
+     */
+    public boolean isComplete() {
+        if (complete) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - checkedAt >= leaseMs) {
+            checkedAt = now;
+            try {
+                Document state = readState();
+                complete = state != null && Boolean.TRUE.equals(state.getBoolean("complete"))
+                        && rejectedCount(state) == 0;
+            } catch (Exception e) {
+                logger.warn("Could not read the answer normalization state: {}", e.getMessage());
+            }
+        }
+        return complete;
+    }
+
+    private static long rejectedCount(Document state) {
+        Object count = state.get("rejectedCount");
+        return count instanceof Number n ? n.longValue() : 0;
+    }
+
+    @Override
+    protected void migrate(String lastId) {
+        long migrated = 0;
+        List<SurveyResponse> batch;
+        do {
+            Criteria criteria = Criteria.where("answersNormalized").ne(true);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(new ObjectId(lastId));
+            }
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(BATCH_SIZE);
+            query.fields().include("surveyId", "answers", "fingerprint");
+
+            batch = mongoTemplate.find(query, SurveyResponse.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SurveyResponse.class);
+            for (SurveyResponse response : batch) {
+                Update update = new Update().set("answersNormalized", true);
+                Optional<CompiledSurvey> survey = response.getSurveyId() != null
+                        ? surveyCache.find(response.getSurveyId())
+                        : Optional.empty();
+                if (survey.isPresent() && response.getAnswers() != null) {
+                    Map<String, Object> answers = AnswerNormalizer.normalize(survey.get(), response.getAnswers());
+                    update.set("answers", answers);
+                    if (response.getFingerprint() != null) {
+                        update.set("fingerprint", ResponseFingerprint.of(answers));
+                    }
+                }
+                ops.updateOne(new Query(Criteria.where("_id").is(response.getId())), update);
+            }
+            List<String> rejected = new ArrayList<>();
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    rejected.add(batch.get(error.getIndex()).getId());
+                }
+                logger.warn("{} responses could not be normalized, first: {}", rejected.size(),
+                        e.getErrors().get(0).getMessage());
+            }
+            migrated += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+            if (!checkpoint(lastId, rejected)) {
+                logger.info("Answer normalization lease lost after {} responses; another instance continues",
+                        migrated);
+                return;
+            }
+        } while (batch.size() == BATCH_SIZE && isRunning());
+
+        if (batch.size() < BATCH_SIZE) {
+            markComplete();
+            checkedAt = 0; // isComplete() re-reads the rejection count
+        }
+        if (migrated > 0) {
+            logger.info("Normalized answers of {} responses", migrated);
+        }
+    }
+}
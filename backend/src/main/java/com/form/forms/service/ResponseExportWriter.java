@@ -0,0 +1,149 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * POI-free CSV and NDJSON exports for BI pipelines.
+ *
+ * Responses are read from a Mongo cursor and written row by row, so an export
+ * can be many times larger than the heap. Columns are resolved by
+ * AnswerColumns, like the XLSX and Arrow exports.
+ */
+@Service
+public class ResponseExportWriter {
+
+    private static final int CURSOR_BATCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ResponseExportWriter(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void writeCsv(ExcelService.ResponseExport export, OutputStream out) throws IOException {
+        AnswerColumns columns = new AnswerColumns(export.getSurvey());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        writer.write("Response ID,Submitted At");
+        for (String name : columns.names()) {
+            writer.write(',');
+            writeCsvValue(writer, name);
+        }
+        writer.write("\r\n");
+
+        Object[] row = new Object[columns.size()];
+        try (Stream<SurveyResponse> responses = stream(export)) {
+            Iterator<SurveyResponse> it = responses.iterator();
+            while (it.hasNext()) {
+                SurveyResponse response = it.next();
+                columns.fill(response.getAnswers(), row);
+
+                writeCsvValue(writer, response.getId());
+                writer.write(',');
+                if (response.getSubmittedAt() != null) {
+                    writer.write(response.getSubmittedAt().toInstant().toString());
+                }
+                for (Object value : row) {
+                    writer.write(',');
+                    writeCsvValue(writer, value);
+                }
+                writer.write("\r\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * One JSON object per line: {"id", "submittedAt", "answers": {question name: value}}.
+     */
+    public void writeNdjson(ExcelService.ResponseExport export, OutputStream out) throws IOException {
+        AnswerColumns columns = new AnswerColumns(export.getSurvey());
+        Object[] row = new Object[columns.size()];
+
+        // The servlet stream belongs to the container; only flush it
+        try (JsonGenerator gen = objectMapper.writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("")
+                .createGenerator(out);
+                Stream<SurveyResponse> responses = stream(export)) {
+            Iterator<SurveyResponse> it = responses.iterator();
+            while (it.hasNext()) {
+                SurveyResponse response = it.next();
+                columns.fill(response.getAnswers(), row);
+
+                gen.writeStartObject();
+                gen.writeName("id");
+                gen.writeString(response.getId());
+                if (response.getSubmittedAt() != null) {
+                    gen.writeName("submittedAt");
+                    gen.writeString(response.getSubmittedAt().toInstant().toString());
+                }
+                gen.writeName("answers");
+                gen.writeStartObject();
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] != null) {
+                        gen.writeName(columns.names()[i]);
+                        gen.writePOJO(row[i]);
+                    }
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            }
+            gen.flush();
+        }
+    }
+
+    private Stream<SurveyResponse> stream(ExcelService.ResponseExport export) {
+        if (export.getQuery() == null) {
+            return Stream.empty();
+        }
+        Query query = Query.of(export.getQuery()).cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("submittedAt", "answers");
+        return mongoTemplate.stream(query, SurveyResponse.class);
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = AnswerColumns.text(value);
+
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,80 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseJson;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Live response feed for the admin grid, as NDJSON or Server-Sent Events.
+ *
+ * Responses are read from a Mongo cursor and written one by one with answer
+ * keys decompressed inline (minified key -> question name), so the server never
+ * holds the result set. Writes block on the servlet stream and the cursor only
+ * fetches its next batch when the previous one has been written, so the read
+ * rate follows the client.
+ */
+@Service
+public class ResponseFeedWriter {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int FLUSH_EVERY = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ResponseFeedWriter(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param feed null writes an empty feed (the caller may not see any response)
+     * @param sse  "response" events followed by one "end" event instead of NDJSON lines
+     */
+    public void write(SurveyService.ResponseQuery feed, OutputStream out, boolean sse) {
+        // The servlet stream belongs to the container; only flush it
+        try (JsonGenerator gen = objectMapper.writer()
+                .withAttribute(ResponseJson.KEY_TO_NAME, feed != null ? feed.getSurvey().getKeyToName() : null)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("")
+                .createGenerator(out);
+                Stream<SurveyResponse> responses = stream(feed)) {
+            long count = 0;
+            Iterator<SurveyResponse> it = responses.iterator();
+            while (it.hasNext()) {
+                SurveyResponse response = it.next();
+                if (sse) {
+                    gen.writeRaw("event: response\ndata: ");
+                }
+                gen.writePOJO(response);
+                gen.writeRaw(sse ? "\n\n" : "\n");
+
+                // First row goes out at once, later rows in small groups
+                if (++count == 1 || count % FLUSH_EVERY == 0) {
+                    gen.flush();
+                }
+            }
+            if (sse) {
+                gen.writeRaw("event: end\ndata: {\"count\":" + count + "}\n\n");
+            }
+            gen.flush();
+        }
+    }
+
+    private Stream<SurveyResponse> stream(SurveyService.ResponseQuery feed) {
+        if (feed == null) {
+            return Stream.empty();
+        }
+        Query query = Query.of(feed.getQuery()).cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, SurveyResponse.class);
+    }
+}
@@ -0,0 +1,320 @@
+package com.form.forms.service;
+
+import com.form.forms.exception.BadRequestException;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static com.form.forms.service.AnswerNormalizer.isBoolean;
+import static com.form.forms.service.AnswerNormalizer.isNumeric;
+
+/**
+ * Drill-down filter over survey answers, compiled to a Mongo Criteria.
+ *
+ * Grammar (AND binds tighter than OR, keywords are case-insensitive):
+ *
+ * <pre>
+ *   expr      := and (OR and)*
+ *   and       := primary (AND primary)*
+ *   primary   := '(' expr ')' | predicate
+ *   predicate := name ('=' | '!=' | '>' | '>=' | '<' | '<=' | '~') value
+ *              | name '?'
+ * </pre>
+ *
+ * '~' is a case-insensitive "contains", 'name?' tests that the question was
+ * answered. Names and values are bare words or double-quoted strings, e.g.
+ * {@code age >= 18 AND (region = North OR comment ~ "late delivery")}.
+ *
+ * Each question is resolved against the compiled survey: values are converted
+ * to the question's declared type (number, boolean, or the native type of the
+ * matching choice) so a predicate compares against one representation, and
+ * the answer path uses the minified key. Imported rows store the question
+ * name, so when the key differs both paths are matched; every branch is a
+ * single-path predicate that answers_wildcard_idx can serve.
+ *
+ * Until ResponseAnswerMigration has rewritten every response, older answers
+ * may still be strings ("5", "true"); compiled with normalized = false, '='
+ * and '!=' also match those representations. Range operators compare the
+ * canonical type only.
+ */
+public final class ResponseFilter {
+
+    private final String source;
+    private final CompiledSurvey survey;
+    private final Consumer<CompiledSurvey.Question> onQuestion;
+    private final boolean normalized;
+    private int pos;
+
+    private ResponseFilter(String source, CompiledSurvey survey, Consumer<CompiledSurvey.Question> onQuestion,
+            boolean normalized) {
+        this.source = source;
+        this.survey = survey;
+        this.onQuestion = onQuestion;
+        this.normalized = normalized;
+    }
+
+    /**
+     * @throws BadRequestException on a syntax error, an unknown question or a value of the wrong type
+     */
+    public static Criteria compile(String expression, CompiledSurvey survey) {
+        return compile(expression, survey, question -> {
+        }, true);
+    }
+
+    /**
+     * @param onQuestion called for every question the filter references
+     * @param normalized whether every stored answer has its canonical type
+     */
+    public static Criteria compile(String expression, CompiledSurvey survey,
+            Consumer<CompiledSurvey.Question> onQuestion, boolean normalized) {
+        ResponseFilter parser = new ResponseFilter(expression, survey, onQuestion, normalized);
+        Criteria criteria = parser.parseOr();
+        parser.skipSpaces();
+        if (parser.pos < expression.length()) {
+            throw parser.error("Unexpected '" + expression.charAt(parser.pos) + "'");
+        }
+        return criteria;
+    }
+
+    /**
+     * Equality on one question, as used by the single questionKey/answerValue drill-down.
+     */
+    public static Criteria equalTo(String questionName, String value, CompiledSurvey survey, boolean normalized) {
+        ResponseFilter filter = new ResponseFilter(questionName, survey, question -> {
+        }, normalized);
+        return filter.predicate(questionName, "=", value);
+    }
+
+    private Criteria parseOr() {
+        List<Criteria> terms = new ArrayList<>();
+        terms.add(parseAnd());
+        while (keyword("OR")) {
+            terms.add(parseAnd());
+        }
+        return terms.size() == 1 ? terms.get(0) : new Criteria().orOperator(terms);
+    }
+
+    private Criteria parseAnd() {
+        List<Criteria> terms = new ArrayList<>();
+        terms.add(parsePrimary());
+        while (keyword("AND")) {
+            terms.add(parsePrimary());
+        }
+        return terms.size() == 1 ? terms.get(0) : new Criteria().andOperator(terms);
+    }
+
+    private Criteria parsePrimary() {
+        skipSpaces();
+        if (peek() == '(') {
+            pos++;
+            Criteria inner = parseOr();
+            skipSpaces();
+            if (peek() != ')') {
+                throw error("Expected ')'");
+            }
+            pos++;
+            return inner;
+        }
+
+        String name = word("question name");
+        skipSpaces();
+        if (peek() == '?') {
+            pos++;
+            return predicate(name, "?", null);
+        }
+        String op = operator();
+        String value = word("value");
+        return predicate(name, op, value);
+    }
+
+    private Criteria predicate(String name, String op, String rawValue) {
+        CompiledSurvey.Question question = survey.getQuestion(name);
+        if (question == null) {
+            // Allow the stored (minified) key as well
+            question = survey.getQuestion(survey.toName(name));
+        }
+        if (question == null) {
+            throw new BadRequestException("Unknown question in filter: " + name);
+        }
+        onQuestion.accept(question);
+
+        String key = question.getKey();
+        List<String> paths = key.equals(question.getName())
+                ? List.of("answers." + key)
+                : List.of("answers." + key, "answers." + question.getName());
+
+        Object value = null;
+        List<Object> storedForms = null;
+        if (rawValue != null) {
+            value = "~".equals(op) ? containsPattern(question, rawValue) : typedValue(question, rawValue);
+            if (!normalized && ("=".equals(op) || "!=".equals(op))) {
+                storedForms = legacyForms(rawValue, value);
+            }
+        }
+
+        List<Criteria> perPath = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            if (storedForms != null) {
+                perPath.add("=".equals(op) ? Criteria.where(path).in(storedForms)
+                        : Criteria.where(path).nin(storedForms));
+            } else {
+                perPath.add(condition(path, op, value));
+            }
+        }
+        if (perPath.size() == 1) {
+            return perPath.get(0);
+        }
+        // The answer may sit under either path: "is" holds on one of them, "is not" on both
+        return "!=".equals(op) ? new Criteria().andOperator(perPath) : new Criteria().orOperator(perPath);
+    }
+
+    private static Criteria condition(String path, String op, Object value) {
+        Criteria where = Criteria.where(path);
+        switch (op) {
+            case "?":
+                return where.exists(true).ne(null);
+            case "=":
+                return where.is(value);
+            case "!=":
+                return where.ne(value);
+            case ">":
+                return where.gt(value);
+            case ">=":
+                return where.gte(value);
+            case "<":
+                return where.lt(value);
+            case "<=":
+                return where.lte(value);
+            case "~":
+                return where.regex((Pattern) value);
+            default:
+                throw new IllegalStateException("Unknown operator " + op);
+        }
+    }
+
+    private static Pattern containsPattern(CompiledSurvey.Question question, String value) {
+        if (isNumeric(question) || isBoolean(question)) {
+            throw new BadRequestException("'~' needs a text question, '" + question.getName() + "' is not");
+        }
+        return Pattern.compile(Pattern.quote(value), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * The value in the representation the question stores (see AnswerNormalizer).
+     */
+    private static Object typedValue(CompiledSurvey.Question question, String value) {
+        if (isNumeric(question)) {
+            try {
+                // Mongo compares int, long and double numerically, one Double covers all
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Question '" + question.getName() + "' needs a number, got: " + value);
+            }
+        }
+        if (isBoolean(question)) {
+            if ("true".equalsIgnoreCase(value)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(value)) {
+                return false;
+            }
+            throw new BadRequestException("Question '" + question.getName() + "' needs true or false, got: " + value);
+        }
+        Object choice = AnswerNormalizer.findChoice(question, value);
+        return choice != null ? choice : value;
+    }
+
+    /**
+     * The typed value plus the strings an unnormalized response may hold for
+     * it: the value as written and the text forms of a number, boolean or
+     * numeric choice ("5", "5.0", "true").
+     */
+    private static List<Object> legacyForms(String rawValue, Object typed) {
+        List<Object> forms = new ArrayList<>(4);
+        forms.add(typed);
+        if (typed instanceof Number n) {
+            addIfAbsent(forms, AnswerNormalizer.numberText(n));
+        }
+        addIfAbsent(forms, String.valueOf(typed));
+        addIfAbsent(forms, rawValue);
+        return forms;
+    }
+
+    private static void addIfAbsent(List<Object> forms, Object form) {
+        if (!forms.contains(form)) {
+            forms.add(form);
+        }
+    }
+
+    // --- tokenizer ---
+
+    private String operator() {
+        skipSpaces();
+        for (String op : new String[] { "!=", ">=", "<=", "=", ">", "<", "~" }) {
+            if (source.startsWith(op, pos)) {
+                pos += op.length();
+                return op;
+            }
+        }
+        throw error("Expected an operator");
+    }
+
+    private String word(String what) {
+        skipSpaces();
+        if (peek() == '"') {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < source.length()) {
+                char c = source.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\' && pos < source.length()) {
+                    c = source.charAt(pos++);
+                }
+                sb.append(c);
+            }
+            throw error("Unterminated string");
+        }
+        int start = pos;
+        while (pos < source.length() && isWordChar(source.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected " + what);
+        }
+        return source.substring(start, pos);
+    }
+
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        int end = pos + keyword.length();
+        if (source.regionMatches(true, pos, keyword, 0, keyword.length())
+                && (end == source.length() || !isWordChar(source.charAt(end)))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '@';
+    }
+
+    private char peek() {
+        return pos < source.length() ? source.charAt(pos) : '\0';
+    }
+
+    private void skipSpaces() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private BadRequestException error(String message) {
+        return new BadRequestException("Invalid filter at position " + pos + ": " + message);
+    }
+}
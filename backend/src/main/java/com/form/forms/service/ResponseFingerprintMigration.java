@@ -0,0 +1,111 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.util.ResponseFingerprint;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives previously imported responses (those carrying the legacy 32-bit
+ * responseHash) a content fingerprint, then creates the unique partial
+ * {surveyId, fingerprint} index that import deduplication relies on.
+ *
+ * Runs as a LeasedMigration, so startup does not wait for it and only one
+ * instance works at a time. Responses whose fingerprint collides with an
+ * existing one (duplicates imported under the old hash) are recorded in the
+ * state document and left without a fingerprint.
+ */
+@Component
+public class ResponseFingerprintMigration extends LeasedMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseFingerprintMigration.class);
+    private static final int BATCH_SIZE = 1000;
+
+    public ResponseFingerprintMigration(MongoTemplate mongoTemplate,
+            @Value("${app.migrations.fingerprintResponses:true}") boolean enabled,
+            @Value("${app.migrations.leaseMs:120000}") long leaseMs) {
+        super(mongoTemplate, "fingerprintResponses", enabled, leaseMs);
+    }
+
+    @Override
+    protected void migrate(String lastId) {
+        long migrated = 0;
+        List<SurveyResponse> batch;
+        do {
+            Criteria criteria = Criteria.where("responseHash").exists(true).and("fingerprint").exists(false);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(new ObjectId(lastId));
+            }
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(BATCH_SIZE);
+            query.fields().include("answers");
+
+            batch = mongoTemplate.find(query, SurveyResponse.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SurveyResponse.class);
+            for (SurveyResponse response : batch) {
+                String fingerprint = ResponseFingerprint.of(response.getAnswers() != null ? response.getAnswers()
+                        : Map.of());
+                ops.updateOne(new Query(Criteria.where("_id").is(response.getId())),
+                        new Update().set("fingerprint", fingerprint));
+            }
+            List<String> rejected = new ArrayList<>();
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    rejected.add(batch.get(error.getIndex()).getId());
+                }
+                logger.warn("{} responses could not be fingerprinted, first: {}", rejected.size(),
+                        e.getErrors().get(0).getMessage());
+            }
+            migrated += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+            if (!checkpoint(lastId, rejected)) {
+                logger.info("Fingerprint backfill lease lost after {} responses; another instance continues",
+                        migrated);
+                return;
+            }
+        } while (batch.size() == BATCH_SIZE && isRunning());
+
+        if (migrated > 0) {
+            logger.info("Fingerprinted {} previously imported responses", migrated);
+        }
+        if (batch.size() < BATCH_SIZE) {
+            createIndex();
+            markComplete();
+        }
+    }
+
+    private void createIndex() {
+        try {
+            mongoTemplate.indexOps(SurveyResponse.class).createIndex(new Index()
+                    .on("surveyId", Sort.Direction.ASC)
+                    .on("fingerprint", Sort.Direction.ASC)
+                    .named("survey_fingerprint_idx")
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("fingerprint").exists(true))));
+        } catch (Exception e) {
+            // Usually duplicates imported before the index existed; probes still work without it
+            logger.error("Could not create unique index survey_fingerprint_idx on responses", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.form.forms.service;
+
+import com.form.forms.model.SurveyResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {surveyId, submittedAt, _id} index that keyset response pages
+ * (SurveyService.getResponsePage) rely on. Automatic index creation is off,
+ * so the @CompoundIndex on SurveyResponse only documents it. Idempotent.
+ */
+@Component
+public class ResponseIndexMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseIndexMigration.class);
+    private static final String SUBMITTED_INDEX = "survey_submitted_idx";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ResponseIndexMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            mongoTemplate.indexOps(SurveyResponse.class).createIndex(new Index()
+                    .on("surveyId", Sort.Direction.ASC)
+                    .on("submittedAt", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.DESC)
+                    .named(SUBMITTED_INDEX));
+        } catch (Exception e) {
+            // Pages still work without it, sorting in memory
+            logger.error("Could not create index {} on responses", SUBMITTED_INDEX, e);
+        }
+    }
+}
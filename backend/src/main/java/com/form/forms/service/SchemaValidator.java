@@ -4,78 +4,308 @@ import com.form.forms.model.Survey;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+/**
+ * Validates submitted answers against a survey definition.
+ *
+ * A survey is compiled once per version into a ValidationPlan - an immutable
+ * array of per-question checks - which CompiledSurvey keeps alongside the rest
+ * of the definition. Running a plan only reads the answers map, and the error
+ * list and messages are created on the first failure. A valid submission
+ * still allocates a little: each regex validator needs a Matcher, and
+ * non-String answers (numbers, booleans) are converted to text for the
+ * email, regex and choice checks.
+ */
 @Service
 public class SchemaValidator {
 
+    /**
+     * Convenience for callers holding a raw Survey; compiles the plan on every
+     * call, so request paths should use the CompiledSurvey overload.
+     */
     public List<String> validate(Survey survey, Map<String, Object> answers) {
-        List<String> errors = new ArrayList<>();
-        Map<String, Object> surveyJson = survey.getSurveyJson();
+        return validate(CompiledSurvey.compile(survey), answers);
+    }
+
+    public List<String> validate(CompiledSurvey survey, Map<String, Object> answers) {
+        return survey.getValidationPlan().validate(answers);
+    }
+
+    public static ValidationPlan compile(List<CompiledSurvey.Question> questions) {
+        QuestionCheck[] checks = new QuestionCheck[questions.size()];
+        int i = 0;
+        for (CompiledSurvey.Question question : questions) {
+            checks[i++] = new QuestionCheck(question);
+        }
+        return new ValidationPlan(checks);
+    }
+
+    /**
+     * Immutable, thread-safe checks for one survey version.
+     */
+    public static final class ValidationPlan {
+        private final QuestionCheck[] checks;
 
-        if (surveyJson == null || !surveyJson.containsKey("pages")) {
-            return errors;
+        private ValidationPlan(QuestionCheck[] checks) {
+            this.checks = checks;
         }
 
-        List<Map<String, Object>> pages = (List<Map<String, Object>>) surveyJson.get("pages");
-        for (Map<String, Object> page : pages) {
-            List<Map<String, Object>> elements = (List<Map<String, Object>>) page.get("elements");
-            if (elements != null) {
-                for (Map<String, Object> element : elements) {
-                    validateElement(element, answers, errors);
+        public List<String> validate(Map<String, Object> answers) {
+            List<String> errors = null;
+            for (QuestionCheck check : checks) {
+                String error = check.check(answers.get(check.name));
+                if (error != null) {
+                    if (errors == null) {
+                        errors = new ArrayList<>();
+                    }
+                    errors.add(error);
                 }
             }
+            return errors != null ? errors : List.of();
+        }
+
+        public int size() {
+            return checks.length;
         }
-        return errors;
     }
 
-    private void validateElement(Map<String, Object> element, Map<String, Object> answers, List<String> errors) {
-        String name = (String) element.get("name");
-        String title = (String) element.get("title");
-        String displayName = title != null ? title : name;
+    /**
+     * Every rule that applies to one question, resolved from the definition at
+     * compile time. check() returns null when the answer is valid.
+     */
+    static final class QuestionCheck {
+        final String name;
+        private final String displayName;
+        private final boolean required;
+        private final boolean numeric;
+        private final boolean email;
+        private final double min;
+        private final double max;
+        private final String rangeMessage;
+        private final int minLength;
+        private final int maxLength;
+        private final String lengthMessage;
+        private final Pattern[] patterns;
+        private final String[] patternMessages;
+        private final Set<String> choices;
+        private final boolean multiChoice;
 
-        boolean isRequired = Boolean.TRUE.equals(element.get("isRequired"));
-        Object answer = answers.get(name);
+        QuestionCheck(CompiledSurvey.Question question) {
+            this.name = question.getName();
+            this.displayName = question.getDisplayName();
+            this.required = question.isRequired();
 
-        // 1. Check Required
-        if (isRequired && (answer == null || answer.toString().trim().isEmpty())) {
-            errors.add("Question '" + displayName + "' is required.");
-            return;
-        }
+            String type = question.getType();
+            String inputType = question.getInputType();
+            boolean numericType = "text".equals(type) && ("number".equals(inputType) || "range".equals(inputType));
 
-        // Return if empty and not required (no further validation needed)
-        if (answer == null)
-            return;
+            double minValue = numericType ? toDouble(question.getProperty("min"), Double.NEGATIVE_INFINITY)
+                    : Double.NEGATIVE_INFINITY;
+            double maxValue = numericType ? toDouble(question.getProperty("max"), Double.POSITIVE_INFINITY)
+                    : Double.POSITIVE_INFINITY;
+            boolean emailType = "text".equals(type) && "email".equals(inputType);
+            int minLen = -1;
+            int maxLen = toInt(question.getProperty("maxLength"), -1);
+            String rangeText = null;
+            String lengthText = null;
+            List<Pattern> patternList = new ArrayList<>();
+            List<String> patternTextList = new ArrayList<>();
+
+            // SurveyJS validators: numeric, text, regex, email
+            for (Map<String, Object> validator : question.getValidators()) {
+                Object validatorType = validator.get("type");
+                String text = validator.get("text") instanceof String t ? t : null;
+                if ("numeric".equals(validatorType)) {
+                    numericType = true;
+                    minValue = Math.max(minValue, toDouble(validator.get("minValue"), Double.NEGATIVE_INFINITY));
+                    maxValue = Math.min(maxValue, toDouble(validator.get("maxValue"), Double.POSITIVE_INFINITY));
+                    rangeText = text != null ? text : rangeText;
+                } else if ("text".equals(validatorType)) {
+                    minLen = Math.max(minLen, toInt(validator.get("minLength"), -1));
+                    int validatorMax = toInt(validator.get("maxLength"), -1);
+                    if (validatorMax >= 0) {
+                        maxLen = maxLen >= 0 ? Math.min(maxLen, validatorMax) : validatorMax;
+                    }
+                    lengthText = text != null ? text : lengthText;
+                } else if ("regex".equals(validatorType) && validator.get("regex") instanceof String regex) {
+                    try {
+                        patternList.add(Pattern.compile(regex));
+                        patternTextList.add(text != null ? text
+                                : "Question '" + displayName + "' has an invalid format.");
+                    } catch (PatternSyntaxException e) {
+                        // A broken pattern in the definition must not block submissions
+                    }
+                } else if ("email".equals(validatorType)) {
+                    emailType = true;
+                }
+            }
 
-        // 2. Type Validation
-        String type = (String) element.get("type"); // text, comment, radiogroup, etc.
-        String inputType = (String) element.get("inputType"); // number, date, etc. (mostly for 'text' type)
+            this.numeric = numericType;
+            this.email = emailType;
+            this.min = minValue;
+            this.max = maxValue;
+            this.rangeMessage = rangeText != null ? rangeText
+                    : "Question '" + displayName + "' must be between " + formatBound(minValue) + " and "
+                            + formatBound(maxValue) + ".";
+            this.minLength = minLen;
+            this.maxLength = maxLen;
+            this.lengthMessage = lengthText != null ? lengthText
+                    : "Question '" + displayName + "' must be between " + Math.max(minLen, 0) + " and "
+                            + (maxLen >= 0 ? String.valueOf(maxLen) : "any number of") + " characters.";
+            this.patterns = patternList.toArray(new Pattern[0]);
+            this.patternMessages = patternTextList.toArray(new String[0]);
 
-        if ("text".equals(type) && "number".equals(inputType)) {
-            if (!isNumeric(answer)) {
-                errors.add("Question '" + displayName + "' must be a valid number.");
+            // Choice membership, unless free-text entries are allowed or choices come from
+            // elsewhere (remote, or another question's answer)
+            boolean openChoices = Boolean.TRUE.equals(question.getProperty("hasOther"))
+                    || Boolean.TRUE.equals(question.getProperty("showOtherItem"))
+                    || question.getProperty("choicesByUrl") != null
+                    || question.getProperty("choicesFromQuestion") != null;
+            boolean choiceType = "radiogroup".equals(type) || "dropdown".equals(type)
+                    || "checkbox".equals(type) || "tagbox".equals(type);
+            if (choiceType && !openChoices && !question.getChoices().isEmpty()) {
+                Set<String> values = new HashSet<>();
+                for (Object choice : question.getChoices()) {
+                    values.add(choiceText(choice));
+                }
+                // Built-in items SurveyJS adds to the choices, with their fixed values
+                if (Boolean.TRUE.equals(question.getProperty("showNoneItem"))
+                        || Boolean.TRUE.equals(question.getProperty("hasNone"))) {
+                    values.add("none");
+                }
+                if (Boolean.TRUE.equals(question.getProperty("showRefuseItem"))) {
+                    values.add("refused");
+                }
+                if (Boolean.TRUE.equals(question.getProperty("showDontKnowItem"))) {
+                    values.add("dontknow");
+                }
+                this.choices = Set.copyOf(values);
+            } else {
+                this.choices = null;
             }
+            this.multiChoice = "checkbox".equals(type) || "tagbox".equals(type);
         }
 
-        if ("text".equals(type) && "email".equals(inputType)) {
-            // Simple basic check, can use regex for stricter validation
-            if (!answer.toString().contains("@")) {
-                errors.add("Question '" + displayName + "' must be a valid email.");
+        String check(Object answer) {
+            if (isBlank(answer)) {
+                return required ? "Question '" + displayName + "' is required." : null;
+            }
+
+            if (numeric) {
+                double value = parseNumber(answer);
+                if (Double.isNaN(value)) {
+                    return "Question '" + displayName + "' must be a valid number.";
+                }
+                if (value < min || value > max) {
+                    return rangeMessage;
+                }
+            }
+
+            if (email && !isEmail(answer.toString())) {
+                return "Question '" + displayName + "' must be a valid email.";
+            }
+
+            if ((minLength >= 0 || maxLength >= 0) && answer instanceof CharSequence text) {
+                int length = text.length();
+                if ((minLength >= 0 && length < minLength) || (maxLength >= 0 && length > maxLength)) {
+                    return lengthMessage;
+                }
+            }
+
+            for (int i = 0; i < patterns.length; i++) {
+                // Like SurveyJS, the pattern only has to occur in the answer
+                if (!patterns[i].matcher(answer.toString()).find()) {
+                    return patternMessages[i];
+                }
+            }
+
+            if (choices != null) {
+                if (multiChoice && answer instanceof Collection<?> selected) {
+                    for (Object item : selected) {
+                        if (!isChoice(item)) {
+                            return "Question '" + displayName + "' has an invalid choice: " + item;
+                        }
+                    }
+                } else if (!isChoice(answer)) {
+                    return "Question '" + displayName + "' has an invalid choice: " + answer;
+                }
             }
+            return null;
         }
 
-        // Add more type checks here as needed (min/max, regex, etc.)
+        private boolean isChoice(Object value) {
+            return value instanceof String s ? choices.contains(s) : choices.contains(choiceText(value));
+        }
+
+        // Numbers in their canonical text, so an answer of 1.0 matches choice 1
+        private static String choiceText(Object value) {
+            return value instanceof Number n ? AnswerNormalizer.numberText(n) : String.valueOf(value);
+        }
     }
 
-    private boolean isNumeric(Object value) {
-        if (value instanceof Number)
-            return true;
-        try {
-            Double.parseDouble(value.toString());
+    private static boolean isBlank(Object answer) {
+        if (answer == null)
             return true;
-        } catch (NumberFormatException e) {
+        if (answer instanceof String s)
+            return s.isBlank();
+        if (answer instanceof Collection<?> c)
+            return c.isEmpty();
+        if (answer instanceof Map<?, ?> m)
+            return m.isEmpty();
+        return false;
+    }
+
+    /**
+     * NaN when the value is not numeric.
+     */
+    private static double parseNumber(Object value) {
+        if (value instanceof Number n)
+            return n.doubleValue();
+        if (value instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static boolean isEmail(String value) {
+        int at = value.indexOf('@');
+        if (at <= 0 || at != value.lastIndexOf('@') || at == value.length() - 1) {
             return false;
         }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double toDouble(Object value, double fallback) {
+        if (value == null)
+            return fallback;
+        double parsed = parseNumber(value);
+        return Double.isNaN(parsed) ? fallback : parsed;
+    }
+
+    private static int toInt(Object value, int fallback) {
+        double parsed = toDouble(value, Double.NaN);
+        return Double.isNaN(parsed) ? fallback : (int) parsed;
+    }
+
+    private static String formatBound(double bound) {
+        if (Double.isInfinite(bound))
+            return bound > 0 ? "+inf" : "-inf";
+        return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
     }
 }
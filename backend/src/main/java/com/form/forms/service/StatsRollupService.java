@@ -0,0 +1,421 @@
+package com.form.forms.service;
+
+import com.form.forms.model.NumericSummary;
+import com.form.forms.model.StatsGranularity;
+import com.form.forms.model.SurveyDailyStats;
+import com.form.forms.model.SurveyPeriodStats;
+import com.form.forms.repository.SurveyPeriodStatsRepository;
+import com.form.forms.util.DayKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads daily, monthly and yearly stats as one logical series, and seals
+ * closed months and years.
+ *
+ * A range is split into whole years, whole months and the remaining edge days.
+ * Sealed period documents are used where they exist; anything not sealed yet
+ * falls back to the finer resolution, so results are always exact.
+ */
+@Service
+public class StatsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsRollupService.class);
+    private static final int SEAL_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final SurveyPeriodStatsRepository periodStatsRepository;
+
+    public StatsRollupService(MongoTemplate mongoTemplate, SurveyPeriodStatsRepository periodStatsRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.periodStatsRepository = periodStatsRepository;
+    }
+
+    /**
+     * Counters of one day ("yyyy-MM-dd"), month ("yyyy-MM") or year ("yyyy").
+     */
+    public static class StatsSlice {
+        private final String label;
+        private int totalResponses;
+        private final Map<String, Map<String, Integer>> questionStats = new HashMap<>();
+        private final Map<String, NumericSummary> numericStats = new HashMap<>();
+
+        StatsSlice(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getTotalResponses() {
+            return totalResponses;
+        }
+
+        public Map<String, Map<String, Integer>> getQuestionStats() {
+            return questionStats;
+        }
+
+        public Map<String, NumericSummary> getNumericStats() {
+            return numericStats;
+        }
+
+        void addNumeric(Map<String, NumericSummary> stats) {
+            if (stats == null)
+                return;
+            stats.forEach((key, summary) -> numericStats.computeIfAbsent(key, k -> new NumericSummary())
+                    .merge(summary));
+        }
+
+        void add(int total, Map<String, Map<String, Integer>> stats) {
+            totalResponses += total;
+            if (stats == null)
+                return;
+            for (Map.Entry<String, Map<String, Integer>> question : stats.entrySet()) {
+                if (question.getValue() == null)
+                    continue;
+                Map<String, Integer> target = questionStats.computeIfAbsent(question.getKey(), k -> new HashMap<>());
+                question.getValue().forEach((option, count) -> target.merge(option, count, Integer::sum));
+            }
+        }
+    }
+
+    /**
+     * Loads the range [start, end] using documents no coarser than maxUnit
+     * (DAY, MONTH or YEAR). A null start means "since the first recorded day".
+     */
+    public List<StatsSlice> loadRange(String surveyId, LocalDate start, LocalDate end, StatsGranularity maxUnit) {
+        if (start == null) {
+            SurveyDailyStats first = mongoTemplate.findOne(
+                    new Query(Criteria.where("surveyId").is(surveyId)).with(Sort.by("day")).limit(1),
+                    SurveyDailyStats.class);
+            if (first == null || first.getDay() == null) {
+                return new ArrayList<>();
+            }
+            start = DayKey.toLocalDate(first.getDay());
+        }
+        if (end == null) {
+            end = LocalDate.now(DayKey.zone());
+        }
+
+        // 1. Split into whole years, whole months and edge days
+        List<Integer> years = new ArrayList<>();
+        List<Integer> months = new ArrayList<>();
+        List<LocalDate[]> dayRanges = new ArrayList<>();
+
+        LocalDate cursor = start;
+        while (!cursor.isAfter(end)) {
+            if (maxUnit == StatsGranularity.YEAR && cursor.getDayOfYear() == 1
+                    && !cursor.plusYears(1).minusDays(1).isAfter(end)) {
+                years.add(cursor.getYear());
+                cursor = cursor.plusYears(1);
+            } else if (maxUnit != StatsGranularity.DAY && cursor.getDayOfMonth() == 1
+                    && !cursor.plusMonths(1).minusDays(1).isAfter(end)) {
+                months.add(monthKey(cursor));
+                cursor = cursor.plusMonths(1);
+            } else {
+                LocalDate monthEnd = cursor.withDayOfMonth(cursor.lengthOfMonth());
+                LocalDate stop = monthEnd.isBefore(end) ? monthEnd : end;
+                addDayRange(dayRanges, cursor, stop);
+                cursor = stop.plusDays(1);
+            }
+        }
+
+        List<StatsSlice> slices = new ArrayList<>();
+
+        // 2. Sealed years; unsealed ones are read month by month
+        if (!years.isEmpty()) {
+            Set<Integer> sealed = new HashSet<>();
+            for (SurveyPeriodStats stats : periodStatsRepository
+                    .findBySurveyIdAndGranularityAndPeriodInAndSealedTrue(surveyId, StatsGranularity.YEAR, years)) {
+                sealed.add(stats.getPeriod());
+                slices.add(toSlice(String.valueOf(stats.getPeriod()), stats));
+            }
+            for (Integer year : years) {
+                if (!sealed.contains(year)) {
+                    for (int m = 1; m <= 12; m++) {
+                        months.add(year * 100 + m);
+                    }
+                }
+            }
+        }
+
+        // 3. Sealed months; unsealed ones are read day by day
+        if (!months.isEmpty()) {
+            Set<Integer> sealed = new HashSet<>();
+            for (SurveyPeriodStats stats : periodStatsRepository
+                    .findBySurveyIdAndGranularityAndPeriodInAndSealedTrue(surveyId, StatsGranularity.MONTH, months)) {
+                sealed.add(stats.getPeriod());
+                slices.add(toSlice(monthLabel(stats.getPeriod()), stats));
+            }
+            for (Integer month : months) {
+                if (!sealed.contains(month)) {
+                    LocalDate first = LocalDate.of(month / 100, month % 100, 1);
+                    addDayRange(dayRanges, first, first.withDayOfMonth(first.lengthOfMonth()));
+                }
+            }
+        }
+
+        // 4. Edge days (and unsealed periods) in a single query
+        if (!dayRanges.isEmpty()) {
+            Map<String, StatsSlice> days = new HashMap<>();
+            for (SurveyDailyStats stats : findDays(surveyId, dayRanges)) {
+                StatsSlice day = days.computeIfAbsent(stats.getDate(), StatsSlice::new);
+                day.add(stats.getTotalResponses(), stats.getQuestionStats());
+                day.addNumeric(stats.getNumericStats());
+            }
+            slices.addAll(days.values());
+        }
+
+        return slices;
+    }
+
+    /**
+     * Rebuilds closed months and years from the daily documents and marks them
+     * sealed. A period counts as closed one day after it ends, so late flushes
+     * from the aggregator have landed.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.sealIntervalMs:21600000}", initialDelayString = "${app.analytics.sealInitialDelayMs:60000}")
+    public void sealClosedPeriods() {
+        LocalDate reference = LocalDate.now(DayKey.zone()).minusDays(1);
+
+        int sealedMonths = 0;
+        for (String[] pending : findUnsealed(StatsGranularity.MONTH, reference.withDayOfMonth(1).toString(), 7)) {
+            int month = Integer.parseInt(pending[1].replace("-", ""));
+            LocalDate first = LocalDate.of(month / 100, month % 100, 1);
+            seal(pending[0], StatsGranularity.MONTH, month, first, first.plusMonths(1));
+            sealedMonths++;
+        }
+
+        int sealedYears = 0;
+        for (String[] pending : findUnsealed(StatsGranularity.YEAR, reference.withDayOfYear(1).toString(), 4)) {
+            int year = Integer.parseInt(pending[1]);
+            seal(pending[0], StatsGranularity.YEAR, year, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+            sealedYears++;
+        }
+
+        if (sealedMonths > 0 || sealedYears > 0) {
+            logger.info("Sealed {} monthly and {} yearly survey stats rollups", sealedMonths, sealedYears);
+        }
+    }
+
+    public void deleteSurvey(String surveyId) {
+        periodStatsRepository.deleteBySurveyId(surveyId);
+    }
+
+    /**
+     * Makes sealed periods of a survey be rebuilt from the daily documents on
+     * the next seal run (after the daily documents were corrected).
+     */
+    public void unseal(String surveyId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("surveyId").is(surveyId).and("sealed").is(true)),
+                new Update().set("sealed", false), SurveyPeriodStats.class);
+    }
+
+    // (surveyId, period prefix of "date") pairs with daily data before cutoff and no sealed rollup.
+    // Every closed period is sealed by a complete run, so only days after the latest sealed period
+    // are scanned, plus all days of surveys that still have an unsealed period (failed run, unseal).
+    private List<String[]> findUnsealed(StatsGranularity granularity, String cutoff, int prefixLength) {
+        Criteria match = Criteria.where("date").lt(cutoff);
+        Criteria sealedScope = null;
+        SurveyPeriodStats latest = mongoTemplate.findOne(
+                new Query(Criteria.where("granularity").is(granularity).and("sealed").is(true))
+                        .with(Sort.by(Sort.Direction.DESC, "period")).limit(1),
+                SurveyPeriodStats.class);
+        if (latest != null) {
+            int period = latest.getPeriod();
+            LocalDate after = granularity == StatsGranularity.YEAR
+                    ? LocalDate.of(period + 1, 1, 1)
+                    : LocalDate.of(period / 100, period % 100, 1).plusMonths(1);
+            // Open periods are always unsealed; only closed ones count
+            int cutoffPeriod = Integer.parseInt(cutoff.substring(0, prefixLength).replace("-", ""));
+            List<String> unsealedSurveys = mongoTemplate.findDistinct(
+                    new Query(Criteria.where("granularity").is(granularity).and("shard").exists(false)
+                            .and("period").lt(cutoffPeriod).and("sealed").ne(true)),
+                    "surveyId", SurveyPeriodStats.class, String.class);
+            match = new Criteria().andOperator(match, new Criteria().orOperator(
+                    Criteria.where("date").gte(after.toString()),
+                    Criteria.where("surveyId").in(unsealedSurveys)));
+            sealedScope = new Criteria().orOperator(
+                    Criteria.where("period").gte(period),
+                    Criteria.where("surveyId").in(unsealedSurveys));
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.project("surveyId")
+                        .and(StringOperators.Substr.valueOf("date").substring(0, prefixLength)).as("period"),
+                Aggregation.group("surveyId", "period"));
+
+        Set<String> sealed = new HashSet<>();
+        Query sealedQuery = new Query(Criteria.where("granularity").is(granularity).and("sealed").is(true));
+        if (sealedScope != null) {
+            sealedQuery.addCriteria(sealedScope);
+        }
+        sealedQuery.fields().include("surveyId").include("period");
+        for (SurveyPeriodStats stats : mongoTemplate.find(sealedQuery, SurveyPeriodStats.class)) {
+            sealed.add(stats.getSurveyId() + "|" + stats.getPeriod());
+        }
+
+        List<String[]> pending = new ArrayList<>();
+        for (Map<?, ?> row : mongoTemplate.aggregate(aggregation, SurveyDailyStats.class, Map.class)
+                .getMappedResults()) {
+            Map<?, ?> id = (Map<?, ?>) row.get("_id");
+            String surveyId = (String) id.get("surveyId");
+            String period = (String) id.get("period");
+            if (surveyId != null && period != null
+                    && !sealed.contains(surveyId + "|" + period.replace("-", ""))) {
+                pending.add(new String[] { surveyId, period });
+            }
+        }
+        return pending;
+    }
+
+    private void seal(String surveyId, StatsGranularity granularity, int period, LocalDate from,
+            LocalDate toExclusive) {
+        for (int attempt = 1; attempt <= SEAL_ATTEMPTS; attempt++) {
+            if (trySeal(surveyId, granularity, period, from, toExclusive)) {
+                return;
+            }
+        }
+        logger.warn("{} {} of survey {} kept changing while it was sealed; left for the next run",
+                granularity, period, surveyId);
+    }
+
+    /**
+     * One attempt at rebuilding a period from its daily documents; false when
+     * an aggregator flush reached the period in the meantime.
+     *
+     * The primary and its shards are read before the days, so every flush that
+     * lands later changes one of them: the rebuilt counters are only written if
+     * the primary still has the totalResponses read, only the shards read (and
+     * still unchanged) are removed, and the primary is marked sealed last, if
+     * nothing was added to it after the rebuild. Until then it stays unsealed,
+     * so readers keep using the days and the compactor does not merge shards
+     * into it.
+     */
+    private boolean trySeal(String surveyId, StatsGranularity granularity, int period, LocalDate from,
+            LocalDate toExclusive) {
+        SurveyPeriodStats primary = mongoTemplate.findOne(
+                new Query(periodCriteria(surveyId, granularity, period).and("shard").exists(false)),
+                SurveyPeriodStats.class);
+        Query shardQuery = new Query(periodCriteria(surveyId, granularity, period).and("shard").exists(true));
+        shardQuery.fields().include("_id").include("totalResponses");
+        List<SurveyPeriodStats> shards = mongoTemplate.find(shardQuery, SurveyPeriodStats.class);
+
+        StatsSlice total = new StatsSlice(String.valueOf(period));
+        String organizationId = null;
+        Query days = new Query(Criteria.where("surveyId").is(surveyId)
+                .and("day").gte(DayKey.of(from)).lt(DayKey.of(toExclusive)));
+        for (SurveyDailyStats stats : mongoTemplate.find(days, SurveyDailyStats.class)) {
+            total.add(stats.getTotalResponses(), stats.getQuestionStats());
+            total.addNumeric(stats.getNumericStats());
+            organizationId = stats.getOrganizationId();
+        }
+
+        String primaryId;
+        if (primary == null) {
+            SurveyPeriodStats rebuilt = new SurveyPeriodStats();
+            rebuilt.setSurveyId(surveyId);
+            rebuilt.setOrganizationId(organizationId);
+            rebuilt.setGranularity(granularity);
+            rebuilt.setPeriod(period);
+            rebuilt.setTotalResponses(total.getTotalResponses());
+            rebuilt.setQuestionStats(total.getQuestionStats());
+            rebuilt.setNumericStats(total.getNumericStats());
+            try {
+                primaryId = mongoTemplate.insert(rebuilt).getId();
+            } catch (DuplicateKeyException e) {
+                return false; // Created by a flush after the snapshot
+            }
+        } else {
+            primaryId = primary.getId();
+            Update update = new Update()
+                    .set("totalResponses", total.getTotalResponses())
+                    .set("questionStats", total.getQuestionStats())
+                    .set("numericStats", total.getNumericStats())
+                    .set("sealed", false);
+            if (mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(primaryId)
+                    .and("totalResponses").is(primary.getTotalResponses())), update, SurveyPeriodStats.class)
+                    .getMatchedCount() == 0) {
+                return false;
+            }
+        }
+
+        // The rebuilt primary holds the shards read above; a shard changed since then
+        // holds a late flush and stays until the next attempt
+        boolean shardsChanged = false;
+        for (SurveyPeriodStats shard : shards) {
+            shardsChanged |= mongoTemplate.remove(new Query(Criteria.where("_id").is(shard.getId())
+                    .and("totalResponses").is(shard.getTotalResponses())), SurveyPeriodStats.class)
+                    .getDeletedCount() == 0;
+        }
+        if (shardsChanged) {
+            return false;
+        }
+
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(primaryId)
+                .and("totalResponses").is(total.getTotalResponses())),
+                new Update().set("sealed", true), SurveyPeriodStats.class).getModifiedCount() > 0;
+    }
+
+    private static Criteria periodCriteria(String surveyId, StatsGranularity granularity, int period) {
+        return Criteria.where("surveyId").is(surveyId).and("granularity").is(granularity).and("period").is(period);
+    }
+
+    private List<SurveyDailyStats> findDays(String surveyId, List<LocalDate[]> dayRanges) {
+        List<Criteria> ranges = new ArrayList<>();
+        for (LocalDate[] range : dayRanges) {
+            ranges.add(Criteria.where("day").gte(DayKey.of(range[0])).lte(DayKey.of(range[1])));
+        }
+        Criteria criteria = Criteria.where("surveyId").is(surveyId);
+        criteria = ranges.size() == 1
+                ? new Criteria().andOperator(criteria, ranges.get(0))
+                : new Criteria().andOperator(criteria, new Criteria().orOperator(ranges));
+        return mongoTemplate.find(new Query(criteria), SurveyDailyStats.class);
+    }
+
+    private void addDayRange(List<LocalDate[]> ranges, LocalDate from, LocalDate to) {
+        if (!ranges.isEmpty()) {
+            LocalDate[] last = ranges.get(ranges.size() - 1);
+            if (last[1].plusDays(1).equals(from)) {
+                last[1] = to;
+                return;
+            }
+        }
+        ranges.add(new LocalDate[] { from, to });
+    }
+
+    private StatsSlice toSlice(String label, SurveyPeriodStats stats) {
+        StatsSlice slice = new StatsSlice(label);
+        slice.add(stats.getTotalResponses(), stats.getQuestionStats());
+        slice.addNumeric(stats.getNumericStats());
+        return slice;
+    }
+
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    private static String monthLabel(int month) {
+        return String.format("%04d-%02d", month / 100, month % 100);
+    }
+}
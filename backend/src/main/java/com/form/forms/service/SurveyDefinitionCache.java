@@ -0,0 +1,121 @@
+package com.form.forms.service;
+
+import com.form.forms.model.Survey;
+import com.form.forms.repository.SurveyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory cache of CompiledSurvey, keyed by survey id and tagged with
+ * the survey version it was compiled from.
+ *
+ * Entries are evicted least-recently-used once maxSize is reached and reloaded
+ * after ttlMs, which also bounds how long another instance's edit can stay
+ * invisible here. Local edits go through SurveyService.updateSurvey, which
+ * bumps the version and invalidates the entry.
+ */
+@Service
+public class SurveyDefinitionCache {
+
+    private final SurveyRepository surveyRepository;
+    private final int maxSize;
+    private final long ttlMs;
+
+    private final Map<String, Entry> entries;
+
+    public SurveyDefinitionCache(SurveyRepository surveyRepository,
+            @Value("${app.surveyCache.maxSize:1000}") int maxSize,
+            @Value("${app.surveyCache.ttlMs:300000}") long ttlMs) {
+        this.surveyRepository = surveyRepository;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SurveyDefinitionCache.this.maxSize;
+            }
+        };
+    }
+
+    public CompiledSurvey get(String surveyId) {
+        return find(surveyId).orElseThrow(() -> new RuntimeException("Survey not found"));
+    }
+
+    public Optional<CompiledSurvey> find(String surveyId) {
+        if (surveyId == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(surveyId);
+            if (entry != null && entry.expiresAt > now) {
+                return Optional.of(entry.survey);
+            }
+        }
+
+        // Load outside the lock; a concurrent miss for the same id just compiles twice.
+        Optional<CompiledSurvey> loaded = surveyRepository.findById(surveyId).map(CompiledSurvey::compile);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    /**
+     * Returns the cached survey only if it matches the requested version,
+     * reloading otherwise.
+     */
+    public Optional<CompiledSurvey> find(String surveyId, int version) {
+        Optional<CompiledSurvey> cached = find(surveyId);
+        if (cached.isPresent() && cached.get().getVersion() != version) {
+            invalidate(surveyId);
+            return find(surveyId);
+        }
+        return cached;
+    }
+
+    /**
+     * Replaces the entry with a freshly saved survey, so the next request does
+     * not have to go back to Mongo.
+     */
+    public CompiledSurvey put(Survey survey) {
+        return put(CompiledSurvey.compile(survey));
+    }
+
+    private CompiledSurvey put(CompiledSurvey compiled) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        synchronized (entries) {
+            Entry current = entries.get(compiled.getId());
+            // Never let a slow loader overwrite a newer version.
+            if (current == null || current.survey.getVersion() <= compiled.getVersion()) {
+                entries.put(compiled.getId(), new Entry(compiled, expiresAt));
+                return compiled;
+            }
+            return current.survey;
+        }
+    }
+
+    public void invalidate(String surveyId) {
+        synchronized (entries) {
+            entries.remove(surveyId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        final CompiledSurvey survey;
+        final long expiresAt;
+
+        Entry(CompiledSurvey survey, long expiresAt) {
+            this.survey = survey;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.form.forms.service;
 
+import com.form.forms.dto.ResponseList;
+import com.form.forms.dto.ResponsePage;
+import com.form.forms.exception.BadRequestException;
 import com.form.forms.model.Role;
 import com.form.forms.model.Survey;
 import com.form.forms.model.SurveyResponse;
 import com.form.forms.repository.ResponseRepository;
 import com.form.forms.repository.SurveyRepository;
-import com.form.forms.repository.UserRepository;
+import com.form.forms.security.CurrentUser;
 import com.form.forms.tenant.OrganizationContext;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.form.forms.util.ResponseCursor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -25,47 +30,43 @@ public class SurveyService {
     private final SurveyRepository surveyRepository;
     private final ResponseRepository responseRepository;
     private final SchemaValidator schemaValidator;
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private final com.form.forms.repository.ProjectRepository projectRepository;
     private final AnalyticsService analyticsService;
     private final MongoTemplate mongoTemplate;
+    private final SurveyDefinitionCache surveyCache;
+    private final AnswerIndexAdvisor indexAdvisor;
+    private final ResponseAnswerMigration answerMigration;
+    private final int maxPageSize;
 
     public SurveyService(SurveyRepository surveyRepository, ResponseRepository responseRepository,
-            SchemaValidator schemaValidator, UserRepository userRepository,
+            SchemaValidator schemaValidator, UserDirectory userDirectory,
             com.form.forms.repository.ProjectRepository projectRepository,
             AnalyticsService analyticsService,
-            MongoTemplate mongoTemplate) {
+            MongoTemplate mongoTemplate,
+            SurveyDefinitionCache surveyCache,
+            AnswerIndexAdvisor indexAdvisor,
+            ResponseAnswerMigration answerMigration,
+            @Value("${app.responses.maxPageSize:500}") int maxPageSize) {
         this.surveyRepository = surveyRepository;
         this.responseRepository = responseRepository;
         this.schemaValidator = schemaValidator;
-        this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
         this.projectRepository = projectRepository;
         this.analyticsService = analyticsService;
         this.mongoTemplate = mongoTemplate;
+        this.surveyCache = surveyCache;
+        this.indexAdvisor = indexAdvisor;
+        this.answerMigration = answerMigration;
+        this.maxPageSize = maxPageSize;
     }
 
     private Role getCurrentUserRole() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.getAuthorities() != null) {
-            String roleName = auth.getAuthorities().stream()
-                    .findFirst()
-                    .map(a -> a.getAuthority().replace("ROLE_", ""))
-                    .orElse(null);
-            if (roleName != null) {
-                return Role.valueOf(roleName);
-            }
-        }
-        return null;
+        return CurrentUser.getRole();
     }
 
     private String getCurrentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            return userRepository.findByUsername(auth.getName())
-                    .map(com.form.forms.model.User::getId)
-                    .orElse(null);
-        }
-        return null;
+        return CurrentUser.getUserId();
     }
 
     public Survey createSurvey(Survey survey) {
@@ -127,6 +128,10 @@ public class SurveyService {
 
         if (updates.getSurveyJson() != null) {
             System.out.println("DEBUG: Updating Survey JSON");
+            if (!updates.getSurveyJson().equals(survey.getSurveyJson())) {
+                // New definition -> new version, so cached compiled copies are replaced
+                survey.setVersion((survey.getVersion() != null ? survey.getVersion() : 1) + 1);
+            }
             survey.setSurveyJson(updates.getSurveyJson());
             try {
                 survey.setMinifiedKeys(generateMinifiedKeys(survey));
@@ -143,14 +148,8 @@ public class SurveyService {
             Role role = getCurrentUserRole();
             if (role == Role.PROJECT_MANAGER) {
                 String pmId = getCurrentUserId();
-                List<String> validNgoIds = userRepository.findByOrganizationId(organizationId).stream()
-                        .filter(u -> u.getRole() == Role.NGO && u.getAssociatedPmIds() != null
-                                && u.getAssociatedPmIds().contains(pmId))
-                        .map(com.form.forms.model.User::getId)
-                        .toList();
-
                 for (String ngoId : updates.getAssignedNgoIds()) {
-                    if (!validNgoIds.contains(ngoId)) {
+                    if (!userDirectory.isAssociatedNgo(organizationId, ngoId, pmId)) {
                         System.err.println("DEBUG: Unauthorized NGO assignment: " + ngoId);
                         throw new RuntimeException(
                                 "Unauthorized assignment: NGO " + ngoId + " is not associated with you.");
@@ -160,6 +159,13 @@ public class SurveyService {
             survey.setAssignedNgoIds(updates.getAssignedNgoIds());
         }
 
+        if (updates.getStatsShardCount() != null) {
+            if (updates.getStatsShardCount() < 1) {
+                throw new BadRequestException("statsShardCount must be at least 1");
+            }
+            survey.setStatsShardCount(updates.getStatsShardCount());
+        }
+
         // Allow Admins to transfer ownership (Assign to PM)
         if (updates.getCreatedBy() != null) {
             Role role = getCurrentUserRole();
@@ -170,7 +176,9 @@ public class SurveyService {
 
         survey.setUpdatedAt(new Date());
         System.out.println("DEBUG: Saving updated survey");
-        return surveyRepository.save(survey);
+        Survey saved = surveyRepository.save(survey);
+        surveyCache.put(saved);
+        return saved;
     }
 
     private Map<String, String> generateMinifiedKeys(Survey survey) {
@@ -280,8 +288,8 @@ public class SurveyService {
 
     @SuppressWarnings("unchecked")
     public SurveyResponse submitResponse(String surveyId, Map<String, Object> payload) {
-        Survey survey = surveyRepository.findById(surveyId)
-                .orElseThrow(() -> new RuntimeException("Survey not found"));
+        CompiledSurvey compiled = surveyCache.get(surveyId);
+        Survey survey = compiled.getSurvey();
 
         Map<String, Object> answers = null;
         if (payload.containsKey("answers")) {
@@ -289,16 +297,18 @@ public class SurveyService {
         }
 
         if (answers != null) {
-            List<String> validationErrors = schemaValidator.validate(survey, answers);
+            List<String> validationErrors = schemaValidator.validate(compiled, answers);
             if (!validationErrors.isEmpty()) {
                 throw new RuntimeException("Validation failed: " + String.join(", ", validationErrors));
             }
 
-            if (survey.getMinifiedKeys() != null && !survey.getMinifiedKeys().isEmpty()) {
+            // Store each answer in its question's canonical type
+            answers = AnswerNormalizer.normalize(compiled, answers);
+
+            if (compiled.hasMinifiedKeys()) {
                 Map<String, Object> compressedAnswers = new java.util.HashMap<>();
                 for (Map.Entry<String, Object> entry : answers.entrySet()) {
-                    String shortKey = survey.getMinifiedKeys().get(entry.getKey());
-                    compressedAnswers.put(shortKey != null ? shortKey : entry.getKey(), entry.getValue());
+                    compressedAnswers.put(compiled.toKey(entry.getKey()), entry.getValue());
                 }
                 answers = compressedAnswers;
             }
@@ -307,7 +317,7 @@ public class SurveyService {
         SurveyResponse response = new SurveyResponse();
         response.setSurveyId(surveyId);
         response.setOrganizationId(survey.getOrganizationId());
-        response.setSurveyVersion(survey.getVersion());
+        response.setSurveyVersion(compiled.getVersion());
 
         // Respondent Logic
         Role role = getCurrentUserRole();
@@ -332,6 +342,7 @@ public class SurveyService {
 
         response.setStatus(com.form.forms.model.ResponseStatus.COMPLETED);
         response.setSubmittedAt(new Date());
+        response.setAnswersNormalized(true);
 
         SurveyResponse saved = responseRepository.save(response);
         analyticsService.logResponse(saved);
@@ -343,10 +354,155 @@ public class SurveyService {
     }
 
     public List<SurveyResponse> getFilteredResponses(String surveyId, String questionKey, String answerValue) {
+        ResponseQuery responseQuery = buildResponseQuery(surveyId, questionKey, answerValue, null);
+        if (responseQuery == null) {
+            return List.of();
+        }
+
+        List<SurveyResponse> responses = mongoTemplate.find(responseQuery.query, SurveyResponse.class);
+        decompress(responseQuery.survey, responses);
+        return responses;
+    }
+
+    /**
+     * Same rows as getFilteredResponses, but the stored answers are not copied:
+     * keys are renamed while the list is serialized.
+     */
+    public ResponseList getResponseList(String surveyId, String questionKey, String answerValue, String filter) {
+        ResponseQuery responseQuery = buildResponseQuery(surveyId, questionKey, answerValue, filter);
+        if (responseQuery == null) {
+            return new ResponseList(List.of(), null);
+        }
+        List<SurveyResponse> responses = mongoTemplate.find(responseQuery.query, SurveyResponse.class);
+        return new ResponseList(responses, keyToName(responseQuery.survey));
+    }
+
+    /**
+     * All matching rows with answers exactly as stored plus the survey's key
+     * dictionary, for clients that resolve question names themselves.
+     */
+    public ResponsePage getResponseDictionary(String surveyId, String questionKey, String answerValue,
+            String filter) {
+        ResponseQuery responseQuery = buildResponseQuery(surveyId, questionKey, answerValue, filter);
+        if (responseQuery == null) {
+            return new ResponsePage(List.of(), null, null, true);
+        }
+        List<SurveyResponse> responses = mongoTemplate.find(responseQuery.query, SurveyResponse.class);
+        return new ResponsePage(responses, null, keyToName(responseQuery.survey), true);
+    }
+
+    /**
+     * Keyset page over (submittedAt, _id), newest first. The cursor is the
+     * opaque nextCursor of the previous page; fields limits answers to the
+     * named questions. Memory is bounded by the page size. In dictionary mode
+     * answers keep their stored keys and the page carries the key dictionary.
+     */
+    public ResponsePage getResponsePage(String surveyId, String questionKey, String answerValue, String filter,
+            int limit, String cursor, List<String> fields, boolean dictionary) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        Criteria after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            ResponseCursor decoded = ResponseCursor.decode(cursor);
+            ObjectId afterId = new ObjectId(decoded.getId());
+            if (decoded.getSubmittedAt() == null) {
+                // Undated rows come last; page through them by _id
+                after = new Criteria().andOperator(
+                        Criteria.where("submittedAt").is(null),
+                        Criteria.where("_id").lt(afterId));
+            } else {
+                // $lt on a date never matches a missing submittedAt, so undated rows are added explicitly
+                after = new Criteria().orOperator(
+                        Criteria.where("submittedAt").lt(decoded.getSubmittedAt()),
+                        new Criteria().andOperator(
+                                Criteria.where("submittedAt").is(decoded.getSubmittedAt()),
+                                Criteria.where("_id").lt(afterId)),
+                        Criteria.where("submittedAt").is(null));
+            }
+        }
+        ResponseQuery responseQuery = buildResponseQuery(surveyId, questionKey, answerValue, filter, after);
+        if (responseQuery == null) {
+            return new ResponsePage(List.of(), null, null, dictionary);
+        }
+        Query query = responseQuery.query;
+
+        query.with(Sort.by(Sort.Direction.DESC, "submittedAt", "_id"));
+        query.limit(limit + 1); // One extra row tells whether another page exists
+
+        if (fields != null && !fields.isEmpty()) {
+            query.fields().include("surveyId", "surveyVersion", "organizationId", "respondentId", "status",
+                    "submittedAt");
+            for (String field : fields) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                // Submissions store the minified key, imports the question name
+                query.fields().include("answers." + responseQuery.survey.toKey(name));
+                query.fields().include("answers." + name);
+            }
+        }
+
+        List<SurveyResponse> responses = mongoTemplate.find(query, SurveyResponse.class);
+        String nextCursor = null;
+        if (responses.size() > limit) {
+            responses = new ArrayList<>(responses.subList(0, limit));
+            SurveyResponse last = responses.get(limit - 1);
+            nextCursor = ResponseCursor.encode(last.getSubmittedAt(), last.getId());
+        }
+        return new ResponsePage(responses, nextCursor, keyToName(responseQuery.survey), dictionary);
+    }
+
+    private static Map<String, String> keyToName(CompiledSurvey compiled) {
+        return compiled.hasMinifiedKeys() ? compiled.getKeyToName() : null;
+    }
+
+    /**
+     * Runs the access checks on the request thread for a response feed that
+     * is written later; null when the caller may not see any response.
+     */
+    public ResponseQuery prepareResponseQuery(String surveyId, String questionKey, String answerValue,
+            String filter) {
+        return buildResponseQuery(surveyId, questionKey, answerValue, filter);
+    }
+
+    /**
+     * Survey plus the access-checked response query.
+     */
+    public static final class ResponseQuery {
+        final CompiledSurvey survey;
+        final Query query;
+
+        ResponseQuery(CompiledSurvey survey, Query query) {
+            this.survey = survey;
+            this.query = query;
+        }
+
+        public CompiledSurvey getSurvey() {
+            return survey;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+    }
+
+    private ResponseQuery buildResponseQuery(String surveyId, String questionKey, String answerValue,
+            String filter) {
+        return buildResponseQuery(surveyId, questionKey, answerValue, filter, null);
+    }
+
+    /**
+     * @param after keyset condition of the page, or null
+     */
+    private ResponseQuery buildResponseQuery(String surveyId, String questionKey, String answerValue,
+            String filter, Criteria after) {
         String organizationId = OrganizationContext.getOrganizationId();
-        Survey survey = surveyRepository.findById(surveyId)
+        CompiledSurvey compiled = surveyCache.find(surveyId)
                 .filter(s -> organizationId == null || s.getOrganizationId().equals(organizationId))
                 .orElseThrow(() -> new RuntimeException("Survey not found or access denied"));
+        Survey survey = compiled.getSurvey();
 
         Role role = getCurrentUserRole();
         String userId = getCurrentUserId();
@@ -359,7 +515,7 @@ public class SurveyService {
                 // But this method returns LIST of responses.
                 // So NGO sees only their own responses.
             } else {
-                return List.of();
+                return null;
             }
         } else if (role == Role.PROJECT_MANAGER) {
             if (userId != null) {
@@ -388,54 +544,73 @@ public class SurveyService {
             query.addCriteria(Criteria.where("respondentId").is(userId));
         }
 
-        // Drill-down Filter
-        if (questionKey != null && !questionKey.isEmpty() && answerValue != null) {
-            String fieldPath = "answers." + questionKey;
-
-            List<Object> potentialValues = new ArrayList<>();
-            potentialValues.add(answerValue); // Add raw string
+        // Key-less operators ($and/$or) are all collected here: Query accepts only one of them
+        List<Criteria> conditions = new ArrayList<>();
+        if (after != null) {
+            conditions.add(after);
+        }
 
-            // Try Boolean
-            if ("true".equalsIgnoreCase(answerValue))
-                potentialValues.add(true);
-            else if ("false".equalsIgnoreCase(answerValue))
-                potentialValues.add(false);
+        // Legacy string answers are matched too until every response is normalized
+        boolean normalized = answerMigration.isComplete();
 
-            // Try Number (Integer and Double)
-            try {
-                Double d = Double.parseDouble(answerValue);
-                potentialValues.add(d);
-                if (d % 1 == 0) {
-                    potentialValues.add(d.intValue());
-                    potentialValues.add(d.longValue());
-                }
-            } catch (NumberFormatException e) {
-                // Not a number, ignore
+        // Drill-down Filter
+        if (questionKey != null && !questionKey.isEmpty() && answerValue != null) {
+            CompiledSurvey.Question question = compiled.getQuestion(questionKey);
+            if (question != null) {
+                indexAdvisor.record(compiled, question);
+                conditions.add(ResponseFilter.equalTo(questionKey, answerValue, compiled, normalized));
+            } else {
+                conditions.add(Criteria.where("answers." + questionKey).in(guessValues(answerValue)));
             }
-
-            // Use 'IN' to match any of the potential representations (String, Int, Double,
-            // Boolean)
-            query.addCriteria(Criteria.where(fieldPath).in(potentialValues));
+        }
+        if (filter != null && !filter.isBlank()) {
+            conditions.add(ResponseFilter.compile(filter, compiled, q -> indexAdvisor.record(compiled, q),
+                    normalized));
+        }
+        if (!conditions.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(conditions));
         }
 
-        List<SurveyResponse> responses = mongoTemplate.find(query, SurveyResponse.class);
+        return new ResponseQuery(compiled, query);
+    }
 
-        // Decompression Logic (Shared)
+    /**
+     * Answer key that is not a question of the survey: match any representation
+     * (String, Int, Double, Boolean) the raw value could have been stored as.
+     */
+    private static List<Object> guessValues(String answerValue) {
+        List<Object> potentialValues = new ArrayList<>();
+        potentialValues.add(answerValue); // Add raw string
+
+        // Try Boolean
+        if ("true".equalsIgnoreCase(answerValue))
+            potentialValues.add(true);
+        else if ("false".equalsIgnoreCase(answerValue))
+            potentialValues.add(false);
+
+        // Try Number (Integer and Double)
         try {
-            if (survey.getMinifiedKeys() != null && !survey.getMinifiedKeys().isEmpty()) {
-                Map<String, String> reverseMap = new java.util.HashMap<>();
-                for (Map.Entry<String, String> entry : survey.getMinifiedKeys().entrySet()) {
-                    if (entry.getValue() != null) {
-                        reverseMap.put(entry.getValue(), entry.getKey());
-                    }
-                }
+            Double d = Double.parseDouble(answerValue);
+            potentialValues.add(d);
+            if (d % 1 == 0) {
+                potentialValues.add(d.intValue());
+                potentialValues.add(d.longValue());
+            }
+        } catch (NumberFormatException e) {
+            // Not a number, ignore
+        }
+        return potentialValues;
+    }
 
+    // Decompression Logic (Shared)
+    private void decompress(CompiledSurvey compiled, List<SurveyResponse> responses) {
+        try {
+            if (compiled.hasMinifiedKeys()) {
                 for (SurveyResponse r : responses) {
                     if (r.getAnswers() != null) {
                         Map<String, Object> decompressed = new java.util.HashMap<>();
                         for (Map.Entry<String, Object> entry : r.getAnswers().entrySet()) {
-                            String originalKey = reverseMap.get(entry.getKey());
-                            decompressed.put(originalKey != null ? originalKey : entry.getKey(), entry.getValue());
+                            decompressed.put(compiled.toName(entry.getKey()), entry.getValue());
                         }
                         r.setAnswers(decompressed);
                     }
@@ -444,7 +619,5 @@ public class SurveyService {
         } catch (Exception e) {
             System.err.println("Error decompressing responses: " + e.getMessage());
         }
-
-        return responses;
     }
 }
@@ -0,0 +1,193 @@
+package com.form.forms.service;
+
+import com.form.forms.model.Role;
+import com.form.forms.model.User;
+import com.form.forms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of the users of an organization, with the lookups the
+ * request path needs precomputed: by id, and PM id -> associated NGOs. A
+ * second bounded map resolves usernames.
+ *
+ * Organizations are evicted least-recently-used once maxOrganizations is
+ * reached and reloaded after ttlMs, which bounds how long another instance's
+ * change can stay invisible here. AuthService invalidates on register, update,
+ * association changes and delete. Returned users are shared: treat them as
+ * read-only and load from UserRepository before modifying.
+ */
+@Service
+public class UserDirectory {
+
+    private final UserRepository userRepository;
+    private final int maxOrganizations;
+    private final long ttlMs;
+
+    private final Map<String, Organization> organizations;
+    private final Map<String, Entry> usernames;
+
+    // Bumped by every invalidation; a load that raced with one is not cached
+    private long generation;
+
+    public UserDirectory(UserRepository userRepository,
+            @Value("${app.userDirectory.maxOrganizations:1000}") int maxOrganizations,
+            @Value("${app.userDirectory.ttlMs:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.maxOrganizations = Math.max(1, maxOrganizations);
+        this.ttlMs = ttlMs;
+        this.organizations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Organization> eldest) {
+                return size() > UserDirectory.this.maxOrganizations;
+            }
+        };
+        // Roughly one user per organization plus its active PMs and NGOs
+        this.usernames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserDirectory.this.maxOrganizations * 10;
+            }
+        };
+    }
+
+    /**
+     * All users of an organization, in repository order.
+     */
+    public List<User> getOrganizationUsers(String organizationId) {
+        return organization(organizationId).users;
+    }
+
+    /**
+     * NGOs of the organization associated with the given PM.
+     */
+    public List<User> getAssociatedNgos(String organizationId, String pmId) {
+        return organization(organizationId).ngosByPm.getOrDefault(pmId, List.of());
+    }
+
+    public boolean isAssociatedNgo(String organizationId, String ngoId, String pmId) {
+        User ngo = organization(organizationId).byId.get(ngoId);
+        return ngo != null && ngo.getRole() == Role.NGO && ngo.getAssociatedPmIds() != null
+                && ngo.getAssociatedPmIds().contains(pmId);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        long loadedAt;
+        synchronized (this) {
+            Entry entry = usernames.get(username);
+            if (entry != null && entry.expiresAt > now) {
+                return Optional.of(entry.user);
+            }
+            loadedAt = generation;
+        }
+
+        // Unknown usernames are not cached, so a new registration is visible at once
+        Optional<User> loaded = userRepository.findByUsername(username);
+        loaded.ifPresent(user -> {
+            synchronized (this) {
+                if (generation == loadedAt) {
+                    usernames.put(username, new Entry(user, System.currentTimeMillis() + ttlMs));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops everything cached about the user: the username entry and the
+     * snapshot of their organization.
+     */
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        if (user.getUsername() != null) {
+            invalidateUsername(user.getUsername());
+        }
+        invalidateOrganization(user.getOrganizationId());
+    }
+
+    public synchronized void invalidateUsername(String username) {
+        generation++;
+        usernames.remove(username);
+    }
+
+    public synchronized void invalidateOrganization(String organizationId) {
+        generation++;
+        organizations.remove(key(organizationId));
+    }
+
+    private Organization organization(String organizationId) {
+        String key = key(organizationId);
+        long now = System.currentTimeMillis();
+        long loadedAt;
+        synchronized (this) {
+            Organization cached = organizations.get(key);
+            if (cached != null && cached.expiresAt > now) {
+                return cached;
+            }
+            loadedAt = generation;
+        }
+
+        // Load outside the lock; a concurrent miss for the same organization just loads twice.
+        Organization loaded = new Organization(userRepository.findByOrganizationId(organizationId),
+                System.currentTimeMillis() + ttlMs);
+        synchronized (this) {
+            if (generation == loadedAt) {
+                organizations.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    // Super admins have no organization
+    private static String key(String organizationId) {
+        return organizationId != null ? organizationId : "";
+    }
+
+    private static final class Organization {
+        final List<User> users;
+        final Map<String, User> byId;
+        final Map<String, List<User>> ngosByPm;
+        final long expiresAt;
+
+        Organization(List<User> users, long expiresAt) {
+            this.users = Collections.unmodifiableList(new ArrayList<>(users));
+            this.byId = new HashMap<>(users.size() * 2);
+            Map<String, List<User>> ngos = new HashMap<>();
+            for (User user : users) {
+                byId.put(user.getId(), user);
+                if (user.getRole() == Role.NGO && user.getAssociatedPmIds() != null) {
+                    for (String pmId : user.getAssociatedPmIds()) {
+                        ngos.computeIfAbsent(pmId, id -> new ArrayList<>()).add(user);
+                    }
+                }
+            }
+            ngos.replaceAll((pmId, list) -> Collections.unmodifiableList(list));
+            this.ngosByPm = ngos;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
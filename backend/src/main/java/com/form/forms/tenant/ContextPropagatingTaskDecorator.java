@@ -0,0 +1,42 @@
+package com.form.forms.tenant;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Carries the submitting thread's organization and security context into a
+ * task that runs on another thread.
+ *
+ * Both live in ThreadLocals, which a pooled or freshly started (virtual)
+ * thread does not inherit. The values are captured when the task is
+ * submitted, installed for the duration of the task and the worker's own
+ * values are restored afterwards, so nothing leaks into the next task.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String organizationId = OrganizationContext.getOrganizationId();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return () -> {
+            String previousOrganizationId = OrganizationContext.getOrganizationId();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            apply(organizationId, securityContext);
+            try {
+                runnable.run();
+            } finally {
+                apply(previousOrganizationId, previousSecurityContext);
+            }
+        };
+    }
+
+    private static void apply(String organizationId, SecurityContext securityContext) {
+        if (organizationId != null) {
+            OrganizationContext.setOrganizationId(organizationId);
+        } else {
+            OrganizationContext.clear();
+        }
+        SecurityContextHolder.setContext(securityContext);
+    }
+}
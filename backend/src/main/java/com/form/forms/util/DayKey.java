@@ -0,0 +1,88 @@
+package com.form.forms.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+
+/**
+ * Thread-safe day bucket encoder for analytics.
+ *
+ * A day is stored as its epoch-day number (days since 1970-01-01) in the stats
+ * zone, so range filters are integer comparisons. For fixed-offset zones the
+ * conversion is pure arithmetic; labels ("yyyy-MM-dd") come from a lazily
+ * filled table, so the hot path does not allocate.
+ */
+public final class DayKey {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final ZoneRules RULES = ZONE.getRules();
+    private static final boolean FIXED_OFFSET = RULES.isFixedOffset();
+    private static final long FIXED_OFFSET_MILLIS = FIXED_OFFSET
+            ? RULES.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L
+            : 0;
+
+    // Labels for 2000-01-01 .. ~2100, filled on first use. Racing writers store
+    // equal immutable Strings, so no synchronization is needed.
+    private static final int LABEL_BASE = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final String[] LABELS = new String[366 * 100];
+
+    private DayKey() {
+    }
+
+    public static ZoneId zone() {
+        return ZONE;
+    }
+
+    public static int of(Date date) {
+        return of(date.getTime());
+    }
+
+    public static int of(long epochMillis) {
+        long offset = FIXED_OFFSET
+                ? FIXED_OFFSET_MILLIS
+                : RULES.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return (int) Math.floorDiv(epochMillis + offset, MILLIS_PER_DAY);
+    }
+
+    public static int of(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    /**
+     * Parses "yyyy-MM-dd".
+     */
+    public static int parse(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    /**
+     * Formats as "yyyy-MM-dd".
+     */
+    public static String format(int day) {
+        int index = day - LABEL_BASE;
+        if (index < 0 || index >= LABELS.length) {
+            return LocalDate.ofEpochDay(day).toString();
+        }
+        String label = LABELS[index];
+        if (label == null) {
+            label = LocalDate.ofEpochDay(day).toString();
+            LABELS[index] = label;
+        }
+        return label;
+    }
+
+    public static LocalDate toLocalDate(int day) {
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * First instant of the day in the stats zone.
+     */
+    public static Date startOf(int day) {
+        return Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZONE).toInstant());
+    }
+}
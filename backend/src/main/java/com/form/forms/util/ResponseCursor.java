@@ -0,0 +1,56 @@
+package com.form.forms.util;
+
+import com.form.forms.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset cursor for response pages: the (submittedAt, _id) of the last
+ * row returned, as URL-safe base64 of "millis:objectId". A row without
+ * submittedAt (sorted after every dated one) is encoded as "-:objectId".
+ */
+public final class ResponseCursor {
+
+    private static final String NO_DATE = "-";
+
+    private final Date submittedAt;
+    private final String id;
+
+    private ResponseCursor(Date submittedAt, String id) {
+        this.submittedAt = submittedAt;
+        this.id = id;
+    }
+
+    public static String encode(Date submittedAt, String id) {
+        String raw = (submittedAt != null ? String.valueOf(submittedAt.getTime()) : NO_DATE) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ResponseCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            String id = raw.substring(colon + 1);
+            if (colon < 1 || !org.bson.types.ObjectId.isValid(id)) {
+                throw new IllegalArgumentException(raw);
+            }
+            String millis = raw.substring(0, colon);
+            return new ResponseCursor(NO_DATE.equals(millis) ? null : new Date(Long.parseLong(millis)), id);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Null when the last row had no submittedAt.
+     */
+    public Date getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
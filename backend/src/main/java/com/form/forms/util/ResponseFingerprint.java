@@ -0,0 +1,81 @@
+package com.form.forms.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 content fingerprint of a response's answers, used for import
+ * deduplication.
+ *
+ * Answers are encoded canonically before hashing: keys sorted, every value
+ * tagged with its type, and whole numbers written the same way whether they
+ * arrive as Integer, Long or Double. Equal answers therefore always produce
+ * the same 64-character hex string, and unlike Map.hashCode() distinct
+ * answers do not collide in practice.
+ */
+public final class ResponseFingerprint {
+
+    private ResponseFingerprint() {
+    }
+
+    public static String of(Map<String, ?> answers) {
+        StringBuilder canonical = new StringBuilder(256);
+        append(canonical, answers);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void append(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append('n');
+        } else if (value instanceof Boolean b) {
+            out.append(b ? "bt" : "bf");
+        } else if (value instanceof Number n) {
+            double d = n.doubleValue();
+            out.append('d');
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+                out.append((long) d);
+            } else {
+                out.append(d);
+            }
+            out.append(';');
+        } else if (value instanceof Map<?, ?> map) {
+            out.append('{');
+            for (Map.Entry<String, ?> entry : sorted(map).entrySet()) {
+                appendString(out, entry.getKey());
+                append(out, entry.getValue());
+            }
+            out.append('}');
+        } else if (value instanceof Collection<?> list) {
+            out.append('[');
+            for (Object item : list) {
+                append(out, item);
+            }
+            out.append(']');
+        } else {
+            appendString(out, value.toString());
+        }
+    }
+
+    // Length-prefixed, so no separator inside a value can shift the boundaries
+    private static void appendString(StringBuilder out, String s) {
+        out.append('s').append(s.length()).append(':').append(s);
+    }
+
+    private static Map<String, ?> sorted(Map<?, ?> map) {
+        Map<String, Object> sorted = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        return sorted;
+    }
+}
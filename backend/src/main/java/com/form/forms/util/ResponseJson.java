@@ -0,0 +1,63 @@
+package com.form.forms.util;
+
+import com.form.forms.model.SurveyResponse;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+import java.util.Map;
+
+/**
+ * Writes SurveyResponse answers with their keys renamed on the way out, so the
+ * stored (minified) answers map is never copied.
+ *
+ * SurveyResponse uses the default bean serialization; only its answers
+ * property goes through AnswersSerializer, which renames keys with the
+ * key -> name map found in the KEY_TO_NAME context attribute and writes the
+ * stored keys when there is none.
+ */
+public final class ResponseJson {
+
+    /**
+     * Serialization attribute holding the minified key -> question name map.
+     */
+    public static final String KEY_TO_NAME = ResponseJson.class.getName() + ".keyToName";
+
+    private ResponseJson() {
+    }
+
+    /**
+     * Writes one response through the context's bean serializer.
+     *
+     * @param keyToName minified key -> question name; null writes the stored keys as-is
+     */
+    public static void write(JsonGenerator gen, SerializationContext ctxt, SurveyResponse response,
+            Map<String, String> keyToName) {
+        Object previous = ctxt.getAttribute(KEY_TO_NAME);
+        ctxt.setAttribute(KEY_TO_NAME, keyToName);
+        try {
+            ctxt.writeValue(gen, response);
+        } finally {
+            ctxt.setAttribute(KEY_TO_NAME, previous);
+        }
+    }
+
+    public static class AnswersSerializer extends ValueSerializer<Map<String, Object>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void serialize(Map<String, Object> answers, JsonGenerator gen, SerializationContext ctxt) {
+            Map<String, String> keyToName = (Map<String, String>) ctxt.getAttribute(KEY_TO_NAME);
+            gen.writeStartObject(answers);
+            for (Map.Entry<String, Object> entry : answers.entrySet()) {
+                String name = keyToName != null ? keyToName.get(entry.getKey()) : null;
+                gen.writeName(name != null ? name : entry.getKey());
+                if (entry.getValue() == null) {
+                    gen.writeNull();
+                } else {
+                    ctxt.writeValue(gen, entry.getValue());
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
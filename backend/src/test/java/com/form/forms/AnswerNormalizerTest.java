@@ -0,0 +1,61 @@
+package com.form.forms;
+
+import com.form.forms.model.Survey;
+import com.form.forms.service.AnswerNormalizer;
+import com.form.forms.service.CompiledSurvey;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerNormalizerTest {
+
+    private final CompiledSurvey survey = compile();
+
+    private static CompiledSurvey compile() {
+        Survey survey = new Survey();
+        survey.setId("s1");
+        survey.setSurveyJson(Map.of("pages", List.of(Map.of("elements", List.of(
+                Map.of("name", "age", "type", "text", "inputType", "number"),
+                Map.of("name", "score", "type", "radiogroup", "choices", List.of(1, 2, 3)),
+                Map.of("name", "fruits", "type", "checkbox", "choices", List.of("apple", "pear")),
+                Map.of("name", "consent", "type", "boolean"),
+                Map.of("name", "note", "type", "comment"))))));
+        survey.setMinifiedKeys(Map.of("age", "q1"));
+        return CompiledSurvey.compile(survey);
+    }
+
+    @Test
+    void testAnswersGetTheirQuestionType() {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("q1", "1,200");
+        answers.put("score", "2");
+        answers.put("fruits", "apple, pear");
+        answers.put("consent", "Yes");
+        answers.put("note", 42);
+        answers.put("unknown", "7");
+
+        Map<String, Object> normalized = AnswerNormalizer.normalize(survey, answers);
+
+        assertEquals(1200.0, normalized.get("q1"));
+        assertEquals(2, normalized.get("score"));
+        assertEquals(List.of("apple", "pear"), normalized.get("fruits"));
+        assertEquals(true, normalized.get("consent"));
+        assertEquals("42", normalized.get("note"));
+        assertEquals("7", normalized.get("unknown"));
+    }
+
+    @Test
+    void testUnconvertibleValuesAreKept() {
+        Map<String, Object> normalized = AnswerNormalizer.normalize(survey,
+                Map.of("age", "n/a", "score", 2.0, "fruits", "banana", "consent", "maybe"));
+
+        assertEquals("n/a", normalized.get("age"));
+        assertEquals(2, normalized.get("score"));
+        assertEquals("banana", normalized.get("fruits"));
+        assertEquals("maybe", normalized.get("consent"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.form.forms;
+
+import com.form.forms.tenant.ContextPropagatingTaskDecorator;
+import com.form.forms.tenant.OrganizationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextPropagatingTaskDecoratorTest {
+
+    @AfterEach
+    void tearDown() {
+        OrganizationContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testTaskSeesSubmittersContext() throws Exception {
+        Authentication auth = new UsernamePasswordAuthenticationToken("pm1", null, List.of());
+        OrganizationContext.setOrganizationId("org-1");
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        AtomicReference<String> seenOrg = new AtomicReference<>();
+        AtomicReference<Authentication> seenAuth = new AtomicReference<>();
+        Runnable task = new ContextPropagatingTaskDecorator().decorate(() -> {
+            seenOrg.set(OrganizationContext.getOrganizationId());
+            seenAuth.set(SecurityContextHolder.getContext().getAuthentication());
+        });
+
+        AtomicReference<String> orgAfter = new AtomicReference<>("unset");
+        Thread worker = Thread.ofVirtual().start(() -> {
+            task.run();
+            orgAfter.set(OrganizationContext.getOrganizationId());
+        });
+        worker.join();
+
+        assertEquals("org-1", seenOrg.get());
+        assertSame(auth, seenAuth.get());
+        assertNull(orgAfter.get()); // Worker's own (empty) context restored
+    }
+}
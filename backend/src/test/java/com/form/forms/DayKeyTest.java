@@ -0,0 +1,37 @@
+package com.form.forms;
+
+import com.form.forms.util.DayKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayKeyTest {
+
+    @Test
+    void testRoundTripThroughLabel() {
+        int day = DayKey.parse("2024-02-29");
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), day);
+        assertEquals("2024-02-29", DayKey.format(day));
+        // Cached label is reused
+        assertSame(DayKey.format(day), DayKey.format(day));
+    }
+
+    @Test
+    void testDayBoundariesInStatsZone() {
+        int day = DayKey.parse("2024-05-01");
+        Date start = DayKey.startOf(day);
+
+        assertEquals(day, DayKey.of(start));
+        assertEquals(day - 1, DayKey.of(start.getTime() - 1));
+        assertEquals(day + 1, DayKey.of(DayKey.startOf(day + 1)));
+    }
+
+    @Test
+    void testFormatOutsideCachedRange() {
+        assertEquals("1999-12-31", DayKey.format(DayKey.parse("1999-12-31")));
+        assertEquals("2150-01-01", DayKey.format(DayKey.parse("2150-01-01")));
+    }
+}
@@ -0,0 +1,51 @@
+package com.form.forms;
+
+import com.form.forms.model.Role;
+import com.form.forms.security.AuthenticatedPrincipal;
+import com.form.forms.security.JwtTokenProvider;
+import com.form.forms.security.JwtTokenVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenVerifierTest {
+
+    private static final String SECRET = "TestSecretKeyWithAtLeast512BitsForHS512SigningPleaseDoNotUseInProduction0123456789";
+
+    @Test
+    void testVerifiesOnceAndCachesPrincipal() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60000);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(provider, 2);
+        String token = provider.generateToken(new UsernamePasswordAuthenticationToken("ngo1", "x"), "u1", Role.NGO,
+                "org1");
+
+        AuthenticatedPrincipal principal = verifier.verify(token).orElseThrow();
+        assertEquals("u1", principal.getUserId());
+        assertEquals("ngo1", principal.getUsername());
+        assertEquals(Role.NGO, principal.getRole());
+        assertEquals("org1", principal.getOrganizationId());
+
+        assertSame(principal, verifier.verify(token).orElseThrow());
+        assertEquals(1, verifier.size());
+    }
+
+    @Test
+    void testRejectsForeignAndExpiredTokens() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60000);
+        JwtTokenVerifier verifier = new JwtTokenVerifier(provider, 10);
+
+        JwtTokenProvider other = new JwtTokenProvider(SECRET.replace('T', 'X'), 60000);
+        String foreign = other.generateToken(new UsernamePasswordAuthenticationToken("admin", "x"), "u2",
+                Role.ADMIN, "org2");
+        assertEquals(Optional.empty(), verifier.verify(foreign));
+
+        String expired = new JwtTokenProvider(SECRET, -1000).generateToken(
+                new UsernamePasswordAuthenticationToken("admin", "x"), "u2", Role.ADMIN, "org2");
+        assertEquals(Optional.empty(), verifier.verify(expired));
+        assertEquals(Optional.empty(), verifier.verify("not.a.jwt"));
+        assertEquals(0, verifier.size());
+    }
+}
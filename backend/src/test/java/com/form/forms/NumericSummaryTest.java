@@ -0,0 +1,45 @@
+package com.form.forms;
+
+import com.form.forms.model.NumericSummary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericSummaryTest {
+
+    @Test
+    void testMergedSummaryMatchesSinglePass() {
+        NumericSummary monday = new NumericSummary();
+        monday.add(2);
+        monday.add(4);
+        NumericSummary tuesday = new NumericSummary();
+        tuesday.add(4);
+        tuesday.add(4);
+        tuesday.add(5);
+        tuesday.add(5);
+        tuesday.add(7);
+        tuesday.add(9);
+
+        NumericSummary total = new NumericSummary();
+        total.merge(monday);
+        total.merge(tuesday);
+        total.merge(null);
+
+        assertEquals(8, total.getCount());
+        assertEquals(40.0, total.getSum());
+        assertEquals(5.0, total.getAverage());
+        assertEquals(2.0, total.getMin());
+        assertEquals(9.0, total.getMax());
+        assertEquals(2.0, total.getStdDev(), 1e-9);
+    }
+
+    @Test
+    void testEmptySummaryHasNoAverage() {
+        NumericSummary empty = new NumericSummary();
+
+        assertEquals(0, empty.getCount());
+        assertNull(empty.getAverage());
+        assertNull(empty.getStdDev());
+        assertNull(empty.getMin());
+    }
+}
@@ -4,7 +4,9 @@ import com.form.forms.model.Role;
 import com.form.forms.model.User;
 import com.form.forms.repository.UserRepository;
 import com.form.forms.security.JwtTokenProvider;
+import com.form.forms.security.PasswordHasher;
 import com.form.forms.service.AuthService;
+import com.form.forms.service.UserDirectory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +33,12 @@ class RbacServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
     @InjectMocks
     private AuthService authService;
 
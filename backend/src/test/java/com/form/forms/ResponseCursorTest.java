@@ -0,0 +1,37 @@
+package com.form.forms;
+
+import com.form.forms.exception.BadRequestException;
+import com.form.forms.util.ResponseCursor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCursorTest {
+
+    private static final String ID = "65a1b2c3d4e5f60718293a4b";
+
+    @Test
+    void testRoundTrip() {
+        Date submittedAt = new Date(1714564800000L);
+        ResponseCursor cursor = ResponseCursor.decode(ResponseCursor.encode(submittedAt, ID));
+
+        assertEquals(submittedAt, cursor.getSubmittedAt());
+        assertEquals(ID, cursor.getId());
+    }
+
+    @Test
+    void testMissingSubmittedAtIsNotEpoch() {
+        ResponseCursor cursor = ResponseCursor.decode(ResponseCursor.encode(null, ID));
+
+        assertNull(cursor.getSubmittedAt());
+        assertEquals(ID, cursor.getId());
+        assertEquals(new Date(0), ResponseCursor.decode(ResponseCursor.encode(new Date(0), ID)).getSubmittedAt());
+    }
+
+    @Test
+    void testRejectsGarbage() {
+        assertThrows(BadRequestException.class, () -> ResponseCursor.decode("not-a-cursor"));
+    }
+}
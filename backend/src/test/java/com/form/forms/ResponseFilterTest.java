@@ -0,0 +1,109 @@
+package com.form.forms;
+
+import com.form.forms.exception.BadRequestException;
+import com.form.forms.model.Survey;
+import com.form.forms.service.CompiledSurvey;
+import com.form.forms.service.ResponseFilter;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseFilterTest {
+
+    private final CompiledSurvey survey = compile();
+
+    private static CompiledSurvey compile() {
+        Survey survey = new Survey();
+        survey.setId("s1");
+        survey.setSurveyJson(Map.of("pages", List.of(Map.of("elements", List.of(
+                Map.of("name", "age", "type", "text", "inputType", "number"),
+                Map.of("name", "region", "type", "dropdown", "choices", List.of("North", "South")),
+                Map.of("name", "score", "type", "radiogroup", "choices", List.of(1, 2, 3)),
+                Map.of("name", "consent", "type", "boolean"),
+                Map.of("name", "comment", "type", "comment"))))));
+        survey.setMinifiedKeys(Map.of("age", "q1", "region", "q2", "score", "q3", "consent", "q4"));
+        return CompiledSurvey.compile(survey);
+    }
+
+    private Document compile(String filter) {
+        return ResponseFilter.compile(filter, survey).getCriteriaObject();
+    }
+
+    @Test
+    void testValuesAreTypedAndPathsMinified() {
+        Document doc = compile("age >= 18");
+
+        List<?> branches = (List<?>) doc.get("$or");
+        assertEquals(2, branches.size());
+        assertEquals(new Document("answers.q1", new Document("$gte", 18.0)), branches.get(0));
+        assertEquals(new Document("answers.age", new Document("$gte", 18.0)), branches.get(1));
+
+        Document score = (Document) ((List<?>) compile("score = 2").get("$or")).get(0);
+        assertEquals(2, score.get("answers.q3"));
+
+        Document consent = (Document) ((List<?>) compile("consent = TRUE").get("$or")).get(0);
+        assertEquals(true, consent.get("answers.q4"));
+    }
+
+    @Test
+    void testNotEqualsHoldsOnEveryPath() {
+        Document doc = compile("region != North");
+
+        assertNull(doc.get("$or"));
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(2, and.size());
+        assertEquals(new Document("answers.q2", new Document("$ne", "North")), and.get(0));
+        assertEquals(new Document("answers.region", new Document("$ne", "North")), and.get(1));
+    }
+
+    @Test
+    void testLegacyStringsMatchUntilNormalized() {
+        Document doc = ResponseFilter.compile("age = 5 AND consent = true", survey, question -> {
+        }, false).getCriteriaObject();
+
+        List<?> and = (List<?>) doc.get("$and");
+        Document age = (Document) ((List<?>) ((Document) and.get(0)).get("$or")).get(0);
+        assertEquals(new Document("$in", List.of(5.0, "5", "5.0")), age.get("answers.q1"));
+        Document consent = (Document) ((List<?>) ((Document) and.get(1)).get("$or")).get(0);
+        assertEquals(new Document("$in", List.of(true, "true")), consent.get("answers.q4"));
+
+        // Ranges compare the canonical type only
+        Document range = (Document) ((List<?>) ResponseFilter.compile("age >= 18", survey, question -> {
+        }, false).getCriteriaObject().get("$or")).get(0);
+        assertEquals(new Document("$gte", 18.0), range.get("answers.q1"));
+    }
+
+    @Test
+    void testAndBindsTighterThanOr() {
+        Document doc = compile("comment ~ \"late delivery\" or region = North and age < 30");
+
+        List<?> or = (List<?>) doc.get("$or");
+        assertEquals(2, or.size());
+        // Unminified question: single path, no $or wrapper
+        assertTrue(((Document) or.get(0)).containsKey("answers.comment"));
+        assertEquals(2, ((List<?>) ((Document) or.get(1)).get("$and")).size());
+    }
+
+    @Test
+    void testParenthesesAndExists() {
+        Document doc = compile("(region = North OR region = South) AND comment?");
+
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(2, and.size());
+        Document exists = (Document) ((Document) and.get(1)).get("answers.comment");
+        assertEquals(true, exists.get("$exists"));
+    }
+
+    @Test
+    void testInvalidFiltersAreRejected() {
+        assertThrows(BadRequestException.class, () -> compile("height > 3"));
+        assertThrows(BadRequestException.class, () -> compile("age = abc"));
+        assertThrows(BadRequestException.class, () -> compile("age ~ 3"));
+        assertThrows(BadRequestException.class, () -> compile("age >= 18 AND"));
+        assertThrows(BadRequestException.class, () -> compile("(age >= 18"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.form.forms;
+
+import com.form.forms.model.Survey;
+import com.form.forms.model.SurveyResponse;
+import com.form.forms.repository.ProjectRepository;
+import com.form.forms.repository.ResponseRepository;
+import com.form.forms.repository.SurveyRepository;
+import com.form.forms.service.AnalyticsService;
+import com.form.forms.service.AnswerIndexAdvisor;
+import com.form.forms.service.ResponseAnswerMigration;
+import com.form.forms.service.SchemaValidator;
+import com.form.forms.service.SurveyDefinitionCache;
+import com.form.forms.service.SurveyService;
+import com.form.forms.service.UserDirectory;
+import com.form.forms.util.ResponseCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResponsePageQueryTest {
+
+    private static final String ID = "65a1b2c3d4e5f60718293a4b";
+
+    @Mock
+    private SurveyRepository surveyRepository;
+
+    @Mock
+    private ResponseRepository responseRepository;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private AnalyticsService analyticsService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AnswerIndexAdvisor indexAdvisor;
+
+    @Mock
+    private ResponseAnswerMigration answerMigration;
+
+    private SurveyService surveyService;
+
+    @BeforeEach
+    void setUp() {
+        Survey survey = new Survey();
+        survey.setId("s1");
+        survey.setOrganizationId("org1");
+        survey.setSurveyJson(Map.of("pages", List.of(Map.of("elements", List.of(
+                Map.of("name", "region", "type", "dropdown", "choices", List.of("North", "South")),
+                Map.of("name", "age", "type", "text", "inputType", "number"))))));
+        survey.setMinifiedKeys(Map.of("region", "q1", "age", "q2"));
+        when(surveyRepository.findById("s1")).thenReturn(Optional.of(survey));
+
+        surveyService = new SurveyService(surveyRepository, responseRepository, new SchemaValidator(),
+                userDirectory, projectRepository, analyticsService, mongoTemplate,
+                new SurveyDefinitionCache(surveyRepository, 10, 60000), indexAdvisor, answerMigration, 500);
+    }
+
+    private Document pageQuery(String questionKey, String answerValue, String filter, String cursor) {
+        surveyService.getResponsePage("s1", questionKey, answerValue, filter, 10, cursor, null, false);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(SurveyResponse.class));
+        return query.getValue().getQueryObject();
+    }
+
+    @Test
+    void testSecondPageWithFilterAndDrillDown() {
+        String cursor = ResponseCursor.encode(new Date(1714564800000L), ID);
+
+        Document doc = pageQuery("region", "North", "age >= 18", cursor);
+
+        assertEquals("s1", doc.get("surveyId"));
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(3, and.size());
+        // Keyset condition first, then the drill-down and the filter
+        assertEquals(3, ((List<?>) ((Document) and.get(0)).get("$or")).size());
+        assertNotNull(((Document) and.get(1)).get("$or"));
+        assertNotNull(((Document) and.get(2)).get("$or"));
+    }
+
+    @Test
+    void testUndatedSecondPageWithFilter() {
+        String cursor = ResponseCursor.encode(null, ID);
+
+        Document doc = pageQuery(null, null, "region != North", cursor);
+
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(2, and.size());
+        assertEquals(2, ((List<?>) ((Document) and.get(0)).get("$and")).size());
+        assertEquals(2, ((List<?>) ((Document) and.get(1)).get("$and")).size());
+    }
+
+    @Test
+    void testFirstPageWithoutConditions() {
+        Document doc = pageQuery(null, null, null, null);
+
+        assertNull(doc.get("$and"));
+        assertEquals("s1", doc.get("surveyId"));
+    }
+}
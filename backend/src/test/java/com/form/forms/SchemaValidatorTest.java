@@ -0,0 +1,113 @@
+package com.form.forms;
+
+import com.form.forms.model.Survey;
+import com.form.forms.service.CompiledSurvey;
+import com.form.forms.service.SchemaValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaValidatorTest {
+
+    private final SchemaValidator validator = new SchemaValidator();
+
+    private CompiledSurvey compile(List<Map<String, Object>> elements) {
+        Survey survey = new Survey();
+        survey.setId("s1");
+        survey.setSurveyJson(Map.of("pages", List.of(Map.of("elements", elements))));
+        return CompiledSurvey.compile(survey);
+    }
+
+    @Test
+    void testValidAnswersProduceNoErrors() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "age", "type", "text", "inputType", "number", "isRequired", true,
+                        "min", 0, "max", 120),
+                Map.of("name", "color", "type", "radiogroup", "choices", List.of("red", "blue"))));
+
+        List<String> errors = validator.validate(survey, Map.of("age", "42", "color", "blue"));
+
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    void testRequiredNumberAndRange() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "name", "type", "text", "isRequired", true),
+                Map.of("name", "age", "type", "text", "inputType", "number", "min", 0, "max", 120),
+                Map.of("name", "score", "type", "text", "inputType", "number")));
+
+        List<String> errors = validator.validate(survey, Map.of("name", " ", "age", 130, "score", "abc"));
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(0).contains("required"));
+        assertTrue(errors.get(1).contains("between 0 and 120"));
+        assertTrue(errors.get(2).contains("valid number"));
+    }
+
+    @Test
+    void testRegexLengthAndEmailValidators() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "code", "type", "text",
+                        "validators", List.of(Map.of("type", "regex", "regex", "[A-Z]{3}", "text", "Bad code"))),
+                Map.of("name", "bio", "type", "comment",
+                        "validators", List.of(Map.of("type", "text", "maxLength", 5))),
+                Map.of("name", "mail", "type", "text", "inputType", "email")));
+
+        List<String> errors = validator.validate(survey,
+                Map.of("code", "ab1", "bio", "too long", "mail", "nobody"));
+
+        assertEquals(List.of("Bad code", "Question 'bio' must be between 0 and 5 characters.",
+                "Question 'mail' must be a valid email."), errors);
+    }
+
+    @Test
+    void testRegexNeedsOnlyToOccur() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "code", "type", "text",
+                        "validators", List.of(Map.of("type", "regex", "regex", "[0-9]{3}"))),
+                Map.of("name", "exact", "type", "text",
+                        "validators", List.of(Map.of("type", "regex", "regex", "^[0-9]{3}$")))));
+
+        assertTrue(validator.validate(survey, Map.of("code", "ref-123-x", "exact", "123")).isEmpty());
+        assertEquals(1, validator.validate(survey, Map.of("exact", "ref-123")).size());
+    }
+
+    @Test
+    void testChoiceMembership() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "tags", "type", "checkbox",
+                        "choices", List.of(Map.of("value", 1, "text", "One"), Map.of("value", 2, "text", "Two"))),
+                Map.of("name", "open", "type", "dropdown", "hasOther", true, "choices", List.of("a"))));
+
+        assertTrue(validator.validate(survey, Map.of("tags", List.of(1, 2), "open", "custom")).isEmpty());
+        assertEquals(1, validator.validate(survey, Map.of("tags", List.of(1, 3))).size());
+    }
+
+    @Test
+    void testNumericChoicesMatchRegardlessOfRepresentation() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "rating", "type", "radiogroup", "choices", List.of(1, 2, 3)),
+                Map.of("name", "sizes", "type", "checkbox", "choices", List.of(0.5, 1))));
+
+        assertTrue(validator.validate(survey, Map.of("rating", 1.0, "sizes", List.of(0.50, 1L))).isEmpty());
+        assertEquals(1, validator.validate(survey, Map.of("rating", 1.5)).size());
+    }
+
+    @Test
+    void testBuiltInChoiceItems() {
+        CompiledSurvey survey = compile(List.of(
+                Map.of("name", "tags", "type", "checkbox", "showNoneItem", true, "choices", List.of("a", "b")),
+                Map.of("name", "pick", "type", "radiogroup", "showRefuseItem", true, "showDontKnowItem", true,
+                        "choices", List.of("a")),
+                Map.of("name", "copy", "type", "dropdown", "choicesFromQuestion", "tags", "choices", List.of("a"))));
+
+        assertTrue(validator.validate(survey, Map.of("tags", List.of("none"), "pick", "refused", "copy", "b"))
+                .isEmpty());
+        assertTrue(validator.validate(survey, Map.of("pick", "dontknow")).isEmpty());
+        assertEquals(1, validator.validate(survey, Map.of("pick", "none")).size());
+    }
+}
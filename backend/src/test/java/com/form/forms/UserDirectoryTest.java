@@ -0,0 +1,57 @@
+package com.form.forms;
+
+import com.form.forms.model.Role;
+import com.form.forms.model.User;
+import com.form.forms.repository.UserRepository;
+import com.form.forms.service.UserDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserDirectoryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void testIndexesOrganizationOnce() {
+        User pm = user("pm-1", Role.PROJECT_MANAGER);
+        User ngo1 = user("ngo-1", Role.NGO);
+        ngo1.setAssociatedPmIds(Set.of("pm-1"));
+        User ngo2 = user("ngo-2", Role.NGO);
+        ngo2.setAssociatedPmIds(Set.of("pm-2"));
+        when(userRepository.findByOrganizationId("org-1")).thenReturn(List.of(pm, ngo1, ngo2));
+
+        UserDirectory directory = new UserDirectory(userRepository, 10, 60000);
+
+        assertEquals(List.of(ngo1), directory.getAssociatedNgos("org-1", "pm-1"));
+        assertTrue(directory.isAssociatedNgo("org-1", "ngo-1", "pm-1"));
+        assertFalse(directory.isAssociatedNgo("org-1", "ngo-2", "pm-1"));
+        assertFalse(directory.isAssociatedNgo("org-1", "pm-1", "pm-1"));
+        assertEquals(3, directory.getOrganizationUsers("org-1").size());
+        verify(userRepository, times(1)).findByOrganizationId("org-1");
+
+        directory.invalidate(ngo2);
+        directory.getOrganizationUsers("org-1");
+        verify(userRepository, times(2)).findByOrganizationId("org-1");
+    }
+
+    private static User user(String id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(id);
+        user.setOrganizationId("org-1");
+        user.setRole(role);
+        return user;
+    }
+}
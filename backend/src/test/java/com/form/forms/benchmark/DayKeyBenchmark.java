@@ -0,0 +1,93 @@
+package com.form.forms.benchmark;
+
+import com.form.forms.util.DayKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Day bucketing of a submission timestamp, as done for every response by the
+ * stats aggregator: the shared SimpleDateFormat it replaced (synchronized,
+ * since it is not thread-safe), one formatter per call, java.time, and DayKey
+ * (epoch day plus its cached label).
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.form.forms.benchmark.DayKeyBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DayKeyBenchmark {
+
+    private static final SimpleDateFormat SHARED_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE.withZone(DayKey.zone());
+
+    // Submissions spread over a year, so the label table sees many days
+    private final long[] timestamps = new long[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long start = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = start + i * 30_817_000L;
+        }
+    }
+
+    private long nextTimestamp() {
+        return timestamps[next++ & (timestamps.length - 1)];
+    }
+
+    @Benchmark
+    public String sharedSimpleDateFormat() {
+        Date date = new Date(nextTimestamp());
+        synchronized (SHARED_FORMAT) {
+            return SHARED_FORMAT.format(date);
+        }
+    }
+
+    @Benchmark
+    public String simpleDateFormatPerCall() {
+        return new SimpleDateFormat("yyyy-MM-dd").format(new Date(nextTimestamp()));
+    }
+
+    @Benchmark
+    public String dateTimeFormatter() {
+        return DAY_FORMAT.format(Instant.ofEpochMilli(nextTimestamp()));
+    }
+
+    @Benchmark
+    public int dayKey() {
+        return DayKey.of(nextTimestamp());
+    }
+
+    @Benchmark
+    public String dayKeyLabel() {
+        return DayKey.format(DayKey.of(nextTimestamp()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DayKeyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.form.forms.benchmark;
+
+import com.form.forms.model.Role;
+import com.form.forms.security.AuthenticatedPrincipal;
+import com.form.forms.security.JwtTokenProvider;
+import com.form.forms.security.JwtTokenVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication cost per request for one bearer token: the old filter
+ * (validate plus three getters, each deriving the key and building a parser),
+ * a single parse with the provider's shared parser, and JwtTokenVerifier with
+ * and without its verified-token cache. Runs on four threads, so the cache
+ * lock is contended.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.form.forms.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "BenchmarkSecretKeyWithAtLeast512BitsForHS512SigningNotForProduction0123456789";
+
+    private JwtTokenProvider provider;
+    private JwtTokenVerifier cachingVerifier;
+    private JwtTokenVerifier uncachedVerifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(SECRET, 3600000);
+        cachingVerifier = new JwtTokenVerifier(provider, 10000);
+        uncachedVerifier = new JwtTokenVerifier(provider, 0);
+        token = provider.generateToken(new UsernamePasswordAuthenticationToken("ngo1", "x"), "u1", Role.NGO,
+                "org1");
+    }
+
+    @Benchmark
+    public void legacyFourParses(Blackhole blackhole) {
+        blackhole.consume(legacyParse(token));
+        blackhole.consume(legacyParse(token).getSubject());
+        blackhole.consume(legacyParse(token).get("organizationId"));
+        blackhole.consume(legacyParse(token).get("role"));
+    }
+
+    @Benchmark
+    public Claims parseOnce() {
+        return provider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedPrincipal> verifyUncached() {
+        return uncachedVerifier.verify(token);
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedPrincipal> verifyCached() {
+        return cachingVerifier.verify(token);
+    }
+
+    /**
+     * One parse as JwtTokenProvider did it before the key and parser were shared.
+     */
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
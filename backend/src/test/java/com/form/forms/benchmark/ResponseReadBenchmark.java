@@ -0,0 +1,112 @@
+package com.form.forms.benchmark;
+
+import com.form.forms.dto.ResponseList;
+import com.form.forms.model.SurveyResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing one page of responses stored with minified answer keys: the
+ * old read path (decompress: a renamed copy of every answers map, then plain
+ * serialization) against ResponseList, which renames keys while writing.
+ *
+ * Allocation is the point of the change, so main() runs with the GC profiler;
+ * compare gc.alloc.rate.norm (bytes per page).
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.form.forms.benchmark.ResponseReadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseReadBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10", "100"})
+    public int questions;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final OutputStream out = OutputStream.nullOutputStream();
+    private Map<String, String> keyToName;
+    private List<SurveyResponse> page;
+    private List<Map<String, Object>> stored;
+
+    @Setup
+    public void setUp() {
+        keyToName = new HashMap<>();
+        for (int q = 0; q < questions; q++) {
+            keyToName.put("k" + Integer.toString(q, 36), "question_" + q);
+        }
+        page = new ArrayList<>(PAGE_SIZE);
+        stored = new ArrayList<>(PAGE_SIZE);
+        for (int r = 0; r < PAGE_SIZE; r++) {
+            Map<String, Object> answers = new HashMap<>();
+            for (String key : keyToName.keySet()) {
+                answers.put(key, r % 3 == 0 ? List.of("a", "b") : "answer " + r);
+            }
+            SurveyResponse response = new SurveyResponse();
+            response.setId(Integer.toHexString(0x1000000 + r));
+            response.setSurveyId("benchmark");
+            response.setAnswers(answers);
+            page.add(response);
+            stored.add(answers);
+        }
+    }
+
+    @Benchmark
+    public void copyAnswers() {
+        // Restore the stored maps; the old path replaced them in place
+        for (int r = 0; r < PAGE_SIZE; r++) {
+            page.get(r).setAnswers(stored.get(r));
+        }
+        for (SurveyResponse response : page) {
+            Map<String, Object> decompressed = new HashMap<>();
+            for (Map.Entry<String, Object> entry : response.getAnswers().entrySet()) {
+                decompressed.put(keyToName.getOrDefault(entry.getKey(), entry.getKey()), entry.getValue());
+            }
+            response.setAnswers(decompressed);
+        }
+        objectMapper.writeValue(out, page);
+    }
+
+    @Benchmark
+    public void renameWhileWriting() {
+        for (int r = 0; r < PAGE_SIZE; r++) {
+            page.get(r).setAnswers(stored.get(r));
+        }
+        objectMapper.writeValue(out, new ResponseList(page, keyToName));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
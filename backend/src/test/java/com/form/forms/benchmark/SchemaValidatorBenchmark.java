@@ -0,0 +1,184 @@
+package com.form.forms.benchmark;
+
+import com.form.forms.model.Survey;
+import com.form.forms.service.CompiledSurvey;
+import com.form.forms.service.SchemaValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of one valid submission against surveys of 50 and 500
+ * questions: the validator before ValidationPlan (LegacyValidator, which
+ * walks the survey JSON on every call), the Survey overload (compiles a plan
+ * per call) and a plan reused from CompiledSurvey, as on the submit path.
+ *
+ * The legacy validator only checked required, number and email, so it does
+ * less work per question than the plan; the comparison favours it.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.form.forms.benchmark.SchemaValidatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaValidatorBenchmark {
+
+    @Param({"50", "500"})
+    public int questions;
+
+    private final SchemaValidator validator = new SchemaValidator();
+    private Survey survey;
+    private CompiledSurvey compiled;
+    private Map<String, Object> answers;
+
+    @Setup
+    public void setUp() {
+        List<Map<String, Object>> elements = new ArrayList<>(questions);
+        answers = new HashMap<>();
+        for (int i = 0; i < questions; i++) {
+            String name = "q" + i;
+            Map<String, Object> element = new HashMap<>();
+            element.put("name", name);
+            element.put("title", "Question " + i);
+            element.put("isRequired", i % 2 == 0);
+            switch (i % 4) {
+                case 0 -> {
+                    element.put("type", "text");
+                    element.put("inputType", "number");
+                    element.put("min", 0);
+                    element.put("max", 100);
+                    answers.put(name, String.valueOf(i % 100));
+                }
+                case 1 -> {
+                    element.put("type", "text");
+                    element.put("inputType", "email");
+                    answers.put(name, "user" + i + "@example.com");
+                }
+                case 2 -> {
+                    element.put("type", "radiogroup");
+                    element.put("choices", List.of("a", "b", "c", "d"));
+                    answers.put(name, "c");
+                }
+                default -> {
+                    element.put("type", "text");
+                    element.put("validators", List.of(Map.of("type", "regex", "regex", "[A-Z]{3}")));
+                    answers.put(name, "ABC-" + i);
+                }
+            }
+            elements.add(element);
+        }
+        survey = new Survey();
+        survey.setId("benchmark");
+        survey.setSurveyJson(Map.of("pages", List.of(Map.of("elements", elements))));
+        compiled = CompiledSurvey.compile(survey);
+    }
+
+    @Benchmark
+    public List<String> legacyValidator() {
+        return LegacyValidator.validate(survey, answers);
+    }
+
+    @Benchmark
+    public List<String> compilePerCall() {
+        return validator.validate(survey, answers);
+    }
+
+    @Benchmark
+    public List<String> compiledPlan() {
+        return validator.validate(compiled, answers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SchemaValidatorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * SchemaValidator as it was before validation plans, kept as the baseline.
+     */
+    @SuppressWarnings("unchecked")
+    static final class LegacyValidator {
+
+        static List<String> validate(Survey survey, Map<String, Object> answers) {
+            List<String> errors = new ArrayList<>();
+            Map<String, Object> surveyJson = survey.getSurveyJson();
+
+            if (surveyJson == null || !surveyJson.containsKey("pages")) {
+                return errors;
+            }
+
+            List<Map<String, Object>> pages = (List<Map<String, Object>>) surveyJson.get("pages");
+            for (Map<String, Object> page : pages) {
+                List<Map<String, Object>> elements = (List<Map<String, Object>>) page.get("elements");
+                if (elements != null) {
+                    for (Map<String, Object> element : elements) {
+                        validateElement(element, answers, errors);
+                    }
+                }
+            }
+            return errors;
+        }
+
+        private static void validateElement(Map<String, Object> element, Map<String, Object> answers,
+                List<String> errors) {
+            String name = (String) element.get("name");
+            String title = (String) element.get("title");
+            String displayName = title != null ? title : name;
+
+            boolean isRequired = Boolean.TRUE.equals(element.get("isRequired"));
+            Object answer = answers.get(name);
+
+            if (isRequired && (answer == null || answer.toString().trim().isEmpty())) {
+                errors.add("Question '" + displayName + "' is required.");
+                return;
+            }
+            if (answer == null)
+                return;
+
+            String type = (String) element.get("type");
+            String inputType = (String) element.get("inputType");
+
+            if ("text".equals(type) && "number".equals(inputType)) {
+                if (!isNumeric(answer)) {
+                    errors.add("Question '" + displayName + "' must be a valid number.");
+                }
+            }
+            if ("text".equals(type) && "email".equals(inputType)) {
+                if (!answer.toString().contains("@")) {
+                    errors.add("Question '" + displayName + "' must be a valid email.");
+                }
+            }
+        }
+
+        private static boolean isNumeric(Object value) {
+            if (value instanceof Number)
+                return true;
+            try {
+                Double.parseDouble(value.toString());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}